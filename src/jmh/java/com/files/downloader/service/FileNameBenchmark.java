@@ -0,0 +1,54 @@
+package com.files.downloader.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.files.downloader.config.DownloadProperties;
+import com.files.downloader.dto.UrlNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+
+/**
+ * Throughput of title casing and file name derivation over the items of a 1 MB listing page.
+ */
+@State(Scope.Benchmark)
+public class FileNameBenchmark {
+
+    private List<UrlNode> urlNodes;
+
+    private String[] segments;
+
+    private ExtractionProfile profile;
+
+    @Setup
+    public void setUp() {
+        ExtractionProfiles extractionProfiles = ExtractionFixtures.extractionProfiles();
+        profile = extractionProfiles.getDefault();
+        HtmlContentParsingService htmlContentParsingService =
+                new HtmlContentParsingService(extractionProfiles, new DownloadProperties());
+        JsonNode root = htmlContentParsingService.extractDataContentJson2(
+                SyntheticPortalPages.page(SyntheticPortalPages.parseSize("1MB"), SyntheticPortalPages.Shape.WIDE));
+        urlNodes = htmlContentParsingService.filterAndDisplayUrl(root);
+        segments = urlNodes.stream()
+                .map(urlNode -> urlNode.getUrl().substring(urlNode.getUrl().lastIndexOf('/') + 1))
+                .toArray(String[]::new);
+    }
+
+    @Benchmark
+    public void toTitleCase(Blackhole blackhole) {
+        for (String segment : segments) {
+            blackhole.consume(FileDownloadService.toTitleCase(segment));
+        }
+    }
+
+    @Benchmark
+    public void fileNameFor(Blackhole blackhole) {
+        for (UrlNode urlNode : urlNodes) {
+            blackhole.consume(FileDownloadService.fileNameFor(urlNode, profile));
+        }
+    }
+
+}
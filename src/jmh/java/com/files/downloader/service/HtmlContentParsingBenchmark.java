@@ -0,0 +1,109 @@
+package com.files.downloader.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.files.downloader.config.DownloadProperties;
+import com.files.downloader.dto.UrlDownloadNode;
+import com.files.downloader.dto.UrlNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Throughput of data-content extraction and url node filtering on synthetic portal pages.
+ * Run with {@code ./gradlew jmh}; the GC profiler adds the allocation rate per operation.
+ */
+@State(Scope.Benchmark)
+public class HtmlContentParsingBenchmark {
+
+    @Param({"10KB", "1MB", "10MB"})
+    public String size;
+
+    @Param({"WIDE", "DEEP"})
+    public String shape;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private HtmlContentParsingService htmlContentParsingService;
+
+    private UrlNodeJsonExtractor urlNodeJsonExtractor;
+
+    private String html;
+
+    private byte[] htmlBytes;
+
+    private String dataContent;
+
+    private JsonNode root;
+
+    @Setup
+    public void setUp() throws IOException {
+        ExtractionProfiles extractionProfiles = ExtractionFixtures.extractionProfiles();
+        htmlContentParsingService = new HtmlContentParsingService(extractionProfiles, new DownloadProperties());
+        urlNodeJsonExtractor = new UrlNodeJsonExtractor(extractionProfiles);
+        html = SyntheticPortalPages.page(
+                SyntheticPortalPages.parseSize(size), SyntheticPortalPages.Shape.valueOf(shape));
+        htmlBytes = html.getBytes(StandardCharsets.UTF_8);
+        dataContent = htmlContentParsingService.extractDataContent(
+                new ByteArrayInputStream(htmlBytes), StandardCharsets.UTF_8);
+        root = htmlContentParsingService.extractDataContentJson2(html);
+    }
+
+    @Benchmark
+    public JsonNode extractDataContentJson() {
+        return htmlContentParsingService.extractDataContentJson(html);
+    }
+
+    @Benchmark
+    public JsonNode extractDataContentJson2() {
+        return htmlContentParsingService.extractDataContentJson2(html);
+    }
+
+    /**
+     * Streaming extraction followed by a JsonNode tree, to compare with the Jsoup variants above.
+     */
+    @Benchmark
+    public JsonNode extractDataContentJsonFromStream() throws IOException {
+        return objectMapper.readTree(htmlContentParsingService.extractDataContent(
+                new ByteArrayInputStream(htmlBytes), StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public String extractDataContentStreaming() throws IOException {
+        return htmlContentParsingService.extractDataContent(
+                new ByteArrayInputStream(htmlBytes), StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public List<UrlNode> filterAndDisplayUrl() {
+        return htmlContentParsingService.filterAndDisplayUrl(root);
+    }
+
+    @Benchmark
+    public UrlDownloadNode filterUrlDownloadNode() {
+        return htmlContentParsingService.filterUrlDownloadNode(root);
+    }
+
+    @Benchmark
+    public List<UrlNode> traverseUrlNodes() {
+        return htmlContentParsingService.traverseUrlNodes(root, "");
+    }
+
+    @Benchmark
+    public List<UrlNode> extractUrlNodesStreaming() throws IOException {
+        return urlNodeJsonExtractor.extractUrlNodes(dataContent);
+    }
+
+    @Benchmark
+    public UrlDownloadNode extractUrlDownloadNodeStreaming() throws IOException {
+        return urlNodeJsonExtractor.extractUrlDownloadNode(dataContent);
+    }
+
+}
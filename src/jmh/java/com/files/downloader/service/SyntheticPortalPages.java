@@ -0,0 +1,107 @@
+package com.files.downloader.service;
+
+import java.util.Random;
+
+/**
+ * Builds synthetic portal pages for the benchmarks: a page shell with navigation markup around a
+ * data-content attribute holding the listing JSON, HTML-escaped as the portal serves it.
+ */
+final class SyntheticPortalPages {
+
+    /**
+     * Depth of each nested chain of the deep JSON shape.
+     */
+    private static final int DEPTH = 40;
+
+    enum Shape {
+        /**
+         * One array of flat item objects.
+         */
+        WIDE,
+        /**
+         * An array of chains of nested objects, with an item at every level.
+         */
+        DEEP
+    }
+
+    private SyntheticPortalPages() {
+    }
+
+    /**
+     * Parses sizes such as "10KB" or "10MB".
+     */
+    static int parseSize(String size) {
+        String upper = size.toUpperCase();
+        if (upper.endsWith("MB")) {
+            return Integer.parseInt(upper.substring(0, upper.length() - 2)) * 1024 * 1024;
+        }
+        if (upper.endsWith("KB")) {
+            return Integer.parseInt(upper.substring(0, upper.length() - 2)) * 1024;
+        }
+        return Integer.parseInt(upper);
+    }
+
+    /**
+     * Returns a page of roughly the given size in characters.
+     */
+    static String page(int size, Shape shape) {
+        Random random = new Random(42);
+        StringBuilder html = new StringBuilder(size + 4096);
+        html.append("<!DOCTYPE html><html><head><title>Listing</title>")
+                .append("<script>window.config = {\"a\": \"<div data-content='x'>\"};</script></head><body>");
+        for (int i = 0; i < 50; i++) {
+            html.append("<nav class=\"menu\"><a href=\"/section/").append(i).append("\">Section ").append(i)
+                    .append("</a><!-- menu entry ").append(i).append(" --></nav>");
+        }
+        String json = shape == Shape.WIDE ? wideJson(size, random) : deepJson(size, random);
+        html.append("<main><div id=\"app\" class=\"listing\" data-content=\"").append(escape(json))
+                .append("\"></div></main><footer>Footer</footer></body></html>");
+        return html.toString();
+    }
+
+    private static String wideJson(int size, Random random) {
+        StringBuilder json = new StringBuilder(size);
+        json.append("{\"items\":[");
+        int index = 0;
+        while (json.length() < size) {
+            if (index > 0) {
+                json.append(',');
+            }
+            item(json, index++, random);
+        }
+        return json.append("],\"next_page_url\":\"?page=2\"}").toString();
+    }
+
+    private static String deepJson(int size, Random random) {
+        StringBuilder json = new StringBuilder(size);
+        json.append("{\"sections\":[");
+        int index = 0;
+        while (json.length() < size) {
+            if (index > 0) {
+                json.append(',');
+            }
+            for (int level = 0; level < DEPTH; level++) {
+                json.append("{\"item\":");
+                item(json, index++, random);
+                json.append(",\"children\":[");
+            }
+            json.append("]}".repeat(DEPTH));
+        }
+        return json.append("]}").toString();
+    }
+
+    private static void item(StringBuilder json, int index, Random random) {
+        json.append("{\"id\":\"").append(index)
+                .append("\",\"custom_url\":\"https://www.example.com/c/category-name-").append(index % 17)
+                .append("/item-title-number-").append(index).append("-my-pro").append(random.nextInt(100_000))
+                .append("\",\"rates\":").append(random.nextInt(500))
+                .append(",\"date\":\"").append(1_700_000_000L + random.nextInt(30_000_000))
+                .append("\",\"url_id\":\"").append(Integer.toHexString(random.nextInt()))
+                .append("\",\"title\":\"Item \\\"").append(index).append("\\\" & more\",\"tags\":[\"a\",\"b\"]}");
+    }
+
+    private static String escape(String value) {
+        return value.replace("&", "&amp;").replace("\"", "&quot;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+}
@@ -0,0 +1,457 @@
+package com.files.downloader.loadtest;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Local stand-in for the third-party portal on the JDK HTTP server: a login form, paginated listing
+ * pages and detail pages carrying data-content JSON, and binary downloads.
+ * <p>
+ * Every listing, detail and download request waits {@link Settings#latency()} and fails with 503 at
+ * {@link Settings#errorRate()}. Beyond {@link Settings#maxInFlight()} concurrent requests the portal
+ * throttles with 429 and a Retry-After of one second. Pages are gzip-compressed when the client accepts it,
+ * and downloads answer HEAD and single byte ranges, sending the whole file when If-Range does not match.
+ * Like a real portal, a request without a valid session is redirected to the login page. The portal also
+ * measures each item from its first detail request to the last byte of its download, which is the per-item
+ * latency reported by {@link LoadTestHarness}.
+ */
+@Slf4j
+public class FakePortal implements AutoCloseable {
+
+    public static final String SESSION_COOKIE = "PORTALSESSION";
+
+    private static final String EXT = "-my-pro";
+
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d*)");
+
+    private final Settings settings;
+
+    private final HttpServer server;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private volatile String session = UUID.randomUUID().toString();
+
+    private volatile boolean rejectHead;
+
+    private volatile int revision;
+
+    private volatile double downloadErrorRate;
+
+    private volatile String lastRange;
+
+    private volatile String lastIfRange;
+
+    private final byte[] payload;
+
+    private final Map<String, Long> itemStarted = new ConcurrentHashMap<>();
+
+    private final Queue<Long> itemLatencies = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong requests = new AtomicLong();
+
+    private final AtomicLong errors = new AtomicLong();
+
+    private final AtomicLong throttled = new AtomicLong();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicLong bytesServed = new AtomicLong();
+
+    private final AtomicLong logins = new AtomicLong();
+
+    private final AtomicLong downloads = new AtomicLong();
+
+    /**
+     * Payload size, latency, error rate and item count of the fake portal.
+     *
+     * @param items        items across all listing pages
+     * @param itemsPerPage items per listing page; further pages are linked with next_page_url
+     * @param payloadBytes size of each download
+     * @param latency      delay before each listing, detail and download response
+     * @param errorRate    share of listing, detail and download requests answered with 503
+     * @param maxInFlight  concurrent requests served before answering 429; 0 for no limit
+     */
+    public record Settings(int items, int itemsPerPage, int payloadBytes, Duration latency, double errorRate,
+                           int maxInFlight, String username, String password) {
+    }
+
+    public FakePortal(Settings settings) throws IOException {
+        this.settings = settings;
+        this.payload = new byte[settings.payloadBytes()];
+        new Random(42).nextBytes(payload);
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/login", this::login);
+        server.createContext("/listing", exchange -> handle(exchange, this::listing));
+        server.createContext("/detail/", exchange -> handle(exchange, this::detail));
+        server.createContext("/download", exchange -> handle(exchange, this::download));
+    }
+
+    public FakePortal start() {
+        server.start();
+        log.info("Fake portal listening on {}", baseUrl());
+        return this;
+    }
+
+    public String baseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    public String loginUrl() {
+        return baseUrl() + "/login";
+    }
+
+    public String listingUrl() {
+        return baseUrl() + "/listing";
+    }
+
+    /**
+     * The custom.download link format of the portal.
+     */
+    public String downloadFormat() {
+        return baseUrl() + "/download?id=%s";
+    }
+
+    public Settings getSettings() {
+        return settings;
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getErrors() {
+        return errors.get();
+    }
+
+    public long getThrottled() {
+        return throttled.get();
+    }
+
+    public long getBytesServed() {
+        return bytesServed.get();
+    }
+
+    public long getLogins() {
+        return logins.get();
+    }
+
+    /**
+     * GET requests of downloads, full or ranged.
+     */
+    public long getDownloads() {
+        return downloads.get();
+    }
+
+    /**
+     * The bytes served for an item's download link.
+     */
+    public byte[] content(String item) {
+        byte[] prefix = prefix(item);
+        byte[] content = Arrays.copyOf(prefix, prefix.length + payload.length);
+        System.arraycopy(payload, 0, content, prefix.length, payload.length);
+        return content;
+    }
+
+    /**
+     * The ETag sent with an item's download.
+     */
+    public String etag(String item) {
+        return "\"" + item + "-" + revision + "-" + (prefix(item).length + payload.length) + "\"";
+    }
+
+    /**
+     * Invalidates the current session, so the next request with it is redirected to the login page.
+     */
+    public void expireSession() {
+        session = UUID.randomUUID().toString();
+    }
+
+    /**
+     * Answers HEAD requests of downloads with 405, as some servers do.
+     */
+    public void setRejectHead(boolean rejectHead) {
+        this.rejectHead = rejectHead;
+    }
+
+    /**
+     * Changes the content and ETag of every download, as if the files were replaced on the portal.
+     */
+    public void setRevision(int revision) {
+        this.revision = revision;
+    }
+
+    /**
+     * Answers this share of download GETs with 503 on top of {@link Settings#errorRate()}, leaving listing
+     * and detail pages alone.
+     */
+    public void setDownloadErrorRate(double downloadErrorRate) {
+        this.downloadErrorRate = downloadErrorRate;
+    }
+
+    /**
+     * The Range header of the last download GET, or null if it had none.
+     */
+    public String getLastRange() {
+        return lastRange;
+    }
+
+    /**
+     * The If-Range header of the last download GET, or null if it had none.
+     */
+    public String getLastIfRange() {
+        return lastIfRange;
+    }
+
+    /**
+     * Nanoseconds from the first detail request of each completed item to the last byte of its download.
+     */
+    public long[] itemLatencies() {
+        return itemLatencies.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void login(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        if ("GET".equals(exchange.getRequestMethod())) {
+            send(exchange, 200, "text/html; charset=UTF-8", ("<html><body><form method=\"post\" action=\"/login\">"
+                    + "<input name=\"username\"><input name=\"password\" type=\"password\"></form></body></html>")
+                    .getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        Map<String, String> form = parseQuery(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+        if (!settings.username().equals(form.get("username")) || !settings.password().equals(form.get("password"))) {
+            send(exchange, 401, "text/plain", "Invalid credentials".getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        logins.incrementAndGet();
+        exchange.getResponseHeaders().add("Set-Cookie", SESSION_COOKIE + "=" + session + "; Path=/; Max-Age=1800");
+        exchange.getResponseHeaders().add("Location", "/");
+        send(exchange, 302, "text/plain", new byte[0]);
+    }
+
+    private void listing(HttpExchange exchange) throws IOException {
+        String page = parseQuery(exchange.getRequestURI().getRawQuery()).getOrDefault("page", "1");
+        int pageNumber = Math.max(1, Integer.parseInt(page));
+        int first = (pageNumber - 1) * settings.itemsPerPage();
+        int last = Math.min(settings.items(), first + settings.itemsPerPage());
+        StringBuilder json = new StringBuilder(256 * settings.itemsPerPage());
+        json.append("{\"items\":[");
+        for (int item = first; item < last; item++) {
+            if (item > first) {
+                json.append(',');
+            }
+            json.append("{\"id\":\"").append(item)
+                    .append("\",\"custom_url\":\"").append(baseUrl()).append("/detail/category-").append(item % 20)
+                    .append("/item-number-").append(item).append(EXT).append(item)
+                    .append("\",\"rates\":").append(item % 500)
+                    .append(",\"date\":\"").append(1_700_000_000L - item * 60L)
+                    .append("\",\"title\":\"Item ").append(item).append("\"}");
+        }
+        json.append(']');
+        if (last < settings.items()) {
+            json.append(",\"next_page_url\":\"?page=").append(pageNumber + 1).append('"');
+        }
+        json.append('}');
+        sendPage(exchange, page(json.toString()));
+    }
+
+    private void detail(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String slug = path.substring(path.lastIndexOf('/') + 1);
+        String item = slug.substring(slug.lastIndexOf(EXT) + EXT.length());
+        itemStarted.putIfAbsent(item, System.nanoTime());
+        sendPage(exchange, page("{\"file\":{\"url_id\":\"" + item + "\"}}"));
+    }
+
+    private void download(HttpExchange exchange) throws IOException {
+        String item = parseQuery(exchange.getRequestURI().getRawQuery()).get("id");
+        byte[] prefix = prefix(item);
+        long length = prefix.length + payload.length;
+        Headers headers = exchange.getResponseHeaders();
+        if ("HEAD".equals(exchange.getRequestMethod()) && rejectHead) {
+            send(exchange, 405, "text/plain", new byte[0]);
+            return;
+        }
+        if ("GET".equals(exchange.getRequestMethod()) && downloadErrorRate > 0
+                && ThreadLocalRandom.current().nextDouble() < downloadErrorRate) {
+            errors.incrementAndGet();
+            send(exchange, 503, "text/plain", new byte[0]);
+            return;
+        }
+        headers.add("Content-Type", "application/octet-stream");
+        headers.add("Accept-Ranges", "bytes");
+        headers.add("ETag", etag(item));
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            headers.add("Content-Length", String.valueOf(length));
+            exchange.sendResponseHeaders(200, -1);
+            return;
+        }
+        downloads.incrementAndGet();
+        long first = 0;
+        long last = length - 1;
+        lastRange = exchange.getRequestHeaders().getFirst("Range");
+        lastIfRange = exchange.getRequestHeaders().getFirst("If-Range");
+        Matcher range = RANGE.matcher(String.valueOf(lastRange));
+        if (range.matches() && (lastIfRange == null || lastIfRange.equals(etag(item)))) {
+            first = Long.parseLong(range.group(1));
+            last = range.group(2).isEmpty() ? last : Math.min(last, Long.parseLong(range.group(2)));
+            headers.add("Content-Range", "bytes " + first + "-" + last + "/" + length);
+            exchange.sendResponseHeaders(206, last - first + 1);
+        } else {
+            exchange.sendResponseHeaders(200, length);
+        }
+        try (OutputStream body = exchange.getResponseBody()) {
+            for (long position = first; position <= last; ) {
+                if (position < prefix.length) {
+                    int end = (int) Math.min(prefix.length, last + 1);
+                    body.write(prefix, (int) position, end - (int) position);
+                    position = end;
+                } else {
+                    int offset = (int) (position - prefix.length);
+                    int end = (int) Math.min(payload.length, last + 1 - prefix.length);
+                    body.write(payload, offset, end - offset);
+                    position += end - offset;
+                }
+            }
+        }
+        bytesServed.addAndGet(last - first + 1);
+        Long started = item == null || last != length - 1 ? null : itemStarted.remove(item);
+        if (started != null) {
+            itemLatencies.add(System.nanoTime() - started);
+        }
+    }
+
+    /**
+     * Applies the session check, latency and error injection before the handler.
+     */
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        requests.incrementAndGet();
+        int concurrent = inFlight.incrementAndGet();
+        try (exchange) {
+            if (settings.maxInFlight() > 0 && concurrent > settings.maxInFlight()) {
+                throttled.incrementAndGet();
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                send(exchange, 429, "text/plain", new byte[0]);
+                return;
+            }
+            String cookie = exchange.getRequestHeaders().getFirst("Cookie");
+            if (cookie == null || !cookie.contains(SESSION_COOKIE + "=" + session)) {
+                exchange.getResponseHeaders().set("Location", "/login");
+                send(exchange, 302, "text/html; charset=UTF-8", new byte[0]);
+                return;
+            }
+            if (!settings.latency().isZero()) {
+                Thread.sleep(settings.latency());
+            }
+            if (settings.errorRate() > 0 && ThreadLocalRandom.current().nextDouble() < settings.errorRate()) {
+                errors.incrementAndGet();
+                send(exchange, 503, "text/plain", new byte[0]);
+                return;
+            }
+            handler.handle(exchange);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("Fake portal failed on {}", exchange.getRequestURI(), e);
+            send(exchange, 500, "text/plain", new byte[0]);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * Prefix of the shared payload, so every item's file and revision has its own digest.
+     */
+    private byte[] prefix(String item) {
+        String line = revision == 0 ? "item " + item : "item " + item + " revision " + revision;
+        return (line + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] page(String json) {
+        String escaped = json.replace("&", "&amp;").replace("\"", "&quot;")
+                .replace("<", "&lt;").replace(">", "&gt;");
+        return ("<!DOCTYPE html><html><head><title>Portal</title></head><body><nav><a href=\"/\">Home</a></nav>"
+                + "<div id=\"app\" data-content=\"" + escaped + "\"></div></body></html>")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Sends an HTML page, gzip-compressed when the client accepts it.
+     */
+    private static void sendPage(HttpExchange exchange, byte[] page) throws IOException {
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (acceptEncoding == null || !acceptEncoding.contains("gzip")) {
+            send(exchange, 200, "text/html; charset=UTF-8", page);
+            return;
+        }
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(page.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(page);
+        }
+        exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        send(exchange, 200, "text/html; charset=UTF-8", compressed.toByteArray());
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> parameters = new HashMap<>();
+        if (query == null || query.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                parameters.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        void handle(HttpExchange exchange) throws IOException;
+    }
+
+}
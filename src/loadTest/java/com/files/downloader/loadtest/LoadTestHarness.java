@@ -0,0 +1,161 @@
+package com.files.downloader.loadtest;
+
+import com.files.downloader.FileDownloadApplication;
+import com.files.downloader.service.DownloadJob;
+import com.files.downloader.service.DownloadJobService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs one download job end to end against a {@link FakePortal} and reports items/sec, bytes/sec,
+ * p99 per-item latency, page bytes decoded and transferred, and peak heap. The application starts with an in-memory H2 database and a
+ * temporary download directory.
+ * <p>
+ * Options: {@code --items}, {@code --items-per-page}, {@code --payload-size}, {@code --latency},
+ * {@code --error-rate} and {@code --portal-max-in-flight} shape the portal; every other {@code --key=value} argument is passed to the
+ * application, e.g. {@code --download.max-concurrency=64}.
+ */
+@Slf4j
+public final class LoadTestHarness {
+
+    private static final long MB = 1024 * 1024;
+
+    private LoadTestHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        List<String> applicationArgs = new ArrayList<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            String key = arg.startsWith("--") && separator > 2 ? arg.substring(2, separator) : "";
+            switch (key) {
+                case "items", "items-per-page", "payload-size", "latency", "error-rate", "portal-max-in-flight" ->
+                        options.put(key, arg.substring(separator + 1));
+                default -> applicationArgs.add(arg);
+            }
+        }
+        FakePortal.Settings settings = new FakePortal.Settings(
+                Integer.parseInt(options.getOrDefault("items", "1000")),
+                Integer.parseInt(options.getOrDefault("items-per-page", "50")),
+                (int) DataSize.parse(options.getOrDefault("payload-size", "256KB")).toBytes(),
+                DurationStyle.detectAndParse(options.getOrDefault("latency", "20ms")),
+                Double.parseDouble(options.getOrDefault("error-rate", "0")),
+                Integer.parseInt(options.getOrDefault("portal-max-in-flight", "0")),
+                "load-test", "load-test");
+        System.exit(run(settings, applicationArgs) ? 0 : 1);
+    }
+
+    /**
+     * Runs the load test.
+     *
+     * @return whether the job completed
+     */
+    public static boolean run(FakePortal.Settings settings, List<String> applicationArgs) throws Exception {
+        Path downloadDir = Files.createTempDirectory("load-test-");
+        try (FakePortal portal = new FakePortal(settings).start()) {
+            List<String> args = new ArrayList<>(List.of(
+                    "--spring.datasource.url=jdbc:h2:mem:load-test;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                    "--spring.datasource.username=sa",
+                    "--spring.datasource.password=",
+                    "--server.port=0",
+                    "--app.portal.loginUrl=" + portal.loginUrl(),
+                    "--app.portal.resourceUrl=" + portal.listingUrl(),
+                    "--app.portal.username=" + settings.username(),
+                    "--app.portal.password=" + settings.password(),
+                    "--custom.download=" + portal.downloadFormat(),
+                    "--download.dir=" + downloadDir,
+                    "--download.jobs.metric-names=load-test"));
+            args.addAll(applicationArgs);
+            try (ConfigurableApplicationContext context =
+                         SpringApplication.run(FileDownloadApplication.class, args.toArray(String[]::new))) {
+                return runJob(context.getBean(DownloadJobService.class), context.getBean(MeterRegistry.class), portal);
+            }
+        } finally {
+            FileSystemUtils.deleteRecursively(downloadDir);
+        }
+    }
+
+    private static boolean runJob(DownloadJobService downloadJobService, MeterRegistry registry, FakePortal portal)
+            throws InterruptedException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        AtomicLong peakHeap = new AtomicLong(memory.getHeapMemoryUsage().getUsed());
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max),
+                0, 10, TimeUnit.MILLISECONDS);
+
+        DownloadJob job = new DownloadJob("load-test", List.of(), true, false);
+        long started = System.nanoTime();
+        try {
+            downloadJobService.submit(job);
+            while (!job.isFinished()) {
+                Thread.sleep(20);
+            }
+        } finally {
+            sampler.shutdownNow();
+        }
+        double seconds = Math.max(System.nanoTime() - started, 1) / 1e9;
+
+        FakePortal.Settings settings = portal.getSettings();
+        long[] latencies = portal.itemLatencies();
+        Arrays.sort(latencies);
+        log.info("Load test: {} items, {} per page, {} KB payload, {} ms latency, {} error rate",
+                settings.items(), settings.itemsPerPage(), settings.payloadBytes() / 1024,
+                settings.latency().toMillis(), settings.errorRate());
+        log.info("  job           {} in {} s{}", job.getStatus(), format(seconds),
+                job.getError() == null ? "" : " (" + job.getError() + ")");
+        log.info("  pages         {} fetched, {} failed", job.getPagesFetched().get(), job.getPagesFailed().get());
+        log.info("  items         {} downloaded, {} failed, {} skipped", job.getItemsDownloaded().get(),
+                job.getItemsFailed().get(), job.getItemsSkipped().get());
+        log.info("  throughput    {} items/s, {} MB/s", format(job.getItemsDownloaded().get() / seconds),
+                format(job.getBytes().get() / seconds / MB));
+        log.info("  item latency  p50 {} ms, p99 {} ms, max {} ms", millis(latencies, 0.50), millis(latencies, 0.99),
+                millis(latencies, 1.0));
+        log.info("  page bytes    {} KB decoded, {} KB transferred", pageBytes(registry, "portal.page.size") / 1024,
+                pageBytes(registry, "portal.page.transferred") / 1024);
+        log.info("  peak heap     {} MB", peakHeap.get() / MB);
+        log.info("  portal        {} requests, {} errors injected, {} throttled, {} MB served", portal.getRequests(),
+                portal.getErrors(), portal.getThrottled(), portal.getBytesServed() / MB);
+        return job.getStatus() == DownloadJob.Status.COMPLETED;
+    }
+
+    private static long pageBytes(MeterRegistry registry, String name) {
+        return (long) registry.find(name).summaries().stream().mapToDouble(DistributionSummary::totalAmount).sum();
+    }
+
+    private static String millis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return "-";
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return format(sorted[Math.max(0, index)] / 1e6);
+    }
+
+    private static String format(double value) {
+        return String.format("%.1f", value);
+    }
+
+}
@@ -4,6 +4,10 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 @Component
 @ConfigurationProperties(prefix="custom")
 @Data
@@ -19,4 +23,57 @@ public class CustomProperties {
 
     private String download;
 
+    /**
+     * Field of the listing data-content JSON that links to a further listing page.
+     */
+    private String nextPage;
+
+    /**
+     * Field of a listing item holding its id.
+     */
+    private String itemId = "id";
+
+    /**
+     * Field of a listing item holding its date in epoch seconds.
+     */
+    private String date = "date";
+
+    /**
+     * Zone in which item dates are formatted; the system default if not set.
+     */
+    private ZoneId zone;
+
+    /**
+     * Extraction profiles for portal pages with a different layout, by name. A page whose url matches
+     * the page-pattern of a profile is read with it; any field a profile leaves unset is taken from above.
+     */
+    private Map<String, Profile> profiles = new LinkedHashMap<>();
+
+    @Data
+    public static class Profile {
+
+        /**
+         * Regular expression matched against the page url; the first matching profile wins.
+         */
+        private String pagePattern;
+
+        private String ext;
+
+        private String rate;
+
+        private String url;
+
+        private String id;
+
+        private String download;
+
+        private String nextPage;
+
+        private String itemId;
+
+        private String date;
+
+        private ZoneId zone;
+    }
+
 }
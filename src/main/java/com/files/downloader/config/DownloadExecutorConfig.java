@@ -0,0 +1,43 @@
+package com.files.downloader.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class DownloadExecutorConfig {
+
+    /**
+     * Executor running one virtual thread per detail-page resolution and download.
+     * Concurrency is bounded by {@link com.files.downloader.service.ConcurrencyLimiter}, not by the executor.
+     */
+    @Bean(destroyMethod = "close")
+    public ExecutorService downloadExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("download-", 0).factory());
+    }
+
+    /**
+     * Bounded executor for whole download jobs: {@code download.jobs.max-concurrent} run at a time and up to
+     * {@code download.jobs.queue-capacity} wait; further submissions are rejected.
+     * Running jobs are interrupted on shutdown instead of holding it up.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService downloadJobExecutor(DownloadProperties downloadProperties) {
+        DownloadProperties.Jobs jobs = downloadProperties.getJobs();
+        return new ThreadPoolExecutor(
+                jobs.getMaxConcurrent(),
+                jobs.getMaxConcurrent(),
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(jobs.getQueueCapacity()),
+                Thread.ofPlatform().name("download-job-", 0).factory(),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+
+}
@@ -3,6 +3,11 @@ package com.files.downloader.config;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 @Configuration
 @ConfigurationProperties(prefix = "download")
@@ -11,4 +16,301 @@ public class DownloadProperties {
 
     private String dir;
 
+    /**
+     * Size of the buffer used to copy a response body to disk.
+     */
+    private int bufferSize = 64 * 1024;
+
+    /**
+     * Maximum number of portal requests in flight across all hosts.
+     */
+    private int maxConcurrency = 32;
+
+    /**
+     * Maximum number of portal requests in flight against a single host; the starting point of the
+     * adaptive per-host limit when {@code download.adaptive-concurrency.enabled} is set.
+     */
+    private int maxConcurrencyPerHost = 8;
+
+    /**
+     * How the data-content JSON is extracted from portal pages.
+     */
+    private ExtractionMode extractionMode = ExtractionMode.STREAMING;
+
+    /**
+     * Whether listing pages are requested conditionally and skipped when unchanged since the last run.
+     */
+    private boolean conditionalGet = true;
+
+    /**
+     * Whether listing and detail pages are requested with gzip/deflate (and Brotli, if its decoder is on the
+     * classpath) and decompressed as they stream in. Downloads are always transferred as-is.
+     */
+    private boolean pageCompression = true;
+
+    private Persistence persistence = new Persistence();
+
+    private Resume resume = new Resume();
+
+    private Storage storage = new Storage();
+
+    private Crawl crawl = new Crawl();
+
+    private Jobs jobs = new Jobs();
+
+    private Sync sync = new Sync();
+
+    private AdaptiveConcurrency adaptiveConcurrency = new AdaptiveConcurrency();
+
+    private Retry retry = new Retry();
+
+    private Segmented segmented = new Segmented();
+
+    @Data
+    public static class Persistence {
+
+        /**
+         * Number of buffered download records that triggers a batch insert.
+         */
+        private int batchSize = 50;
+
+        /**
+         * Maximum time a download record stays buffered before it is written.
+         */
+        private Duration flushInterval = Duration.ofSeconds(5);
+    }
+
+    @Data
+    public static class Resume {
+
+        /**
+         * Whether interrupted downloads continue from their .part file with a Range request.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Downloads at least this large record their progress before streaming, so they can be resumed
+         * even after the process dies. Smaller downloads only record it when they fail.
+         */
+        private DataSize persistThreshold = DataSize.ofMegabytes(8);
+    }
+
+    @Data
+    public static class Segmented {
+
+        /**
+         * Whether downloads are probed with HEAD and, when large enough and served with byte ranges,
+         * fetched as parallel range requests. Costs one extra request per download.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Files smaller than this are downloaded as a single stream.
+         */
+        private DataSize threshold = DataSize.ofMegabytes(32);
+
+        /**
+         * Maximum number of ranges fetched in parallel per file.
+         */
+        private int segments = 4;
+
+        /**
+         * Ranges are never smaller than this, so mid-sized files use fewer segments.
+         */
+        private DataSize minSegmentSize = DataSize.ofMegabytes(8);
+    }
+
+    @Data
+    public static class Storage {
+
+        /**
+         * Whether downloads are stored once per SHA-256 under {@code .blobs} and named through links.
+         */
+        private boolean contentAddressed = true;
+
+        /**
+         * How file names point at their blob.
+         */
+        private LinkMode linkMode = LinkMode.HARD;
+
+        /**
+         * Whether a response whose strong ETag and length match an earlier download is linked to that
+         * download's blob without reading the body.
+         */
+        private boolean reuseByEtag = true;
+    }
+
+    @Data
+    public static class Crawl {
+
+        /**
+         * Maximum number of listing pages of one job fetched at the same time.
+         */
+        private int maxConcurrentPages = 4;
+
+        /**
+         * Maximum number of listing pages one job fetches, including pages found through pagination links.
+         */
+        private int maxPages = 500;
+    }
+
+    @Data
+    public static class Jobs {
+
+        /**
+         * Number of download jobs that run at the same time.
+         */
+        private int maxConcurrent = 2;
+
+        /**
+         * Number of jobs that may wait for a free slot; further submissions are rejected.
+         */
+        private int queueCapacity = 16;
+
+        /**
+         * How long the state of a finished job stays available.
+         */
+        private Duration retention = Duration.ofHours(24);
+
+        /**
+         * Job names that tag the job metrics, besides "manual", "retry" and the scheduled syncs. Metrics of
+         * jobs with any other name are tagged "other", so client-chosen names cannot add series.
+         */
+        private List<String> metricNames = new ArrayList<>();
+    }
+
+    @Data
+    public static class Sync {
+
+        /**
+         * Pages synced incrementally on a schedule.
+         */
+        private List<SyncPage> pages = new ArrayList<>();
+    }
+
+    @Data
+    public static class SyncPage {
+
+        /**
+         * Page name appended to the resource url; empty for the resource page itself.
+         */
+        private String page = "";
+
+        /**
+         * Cron expression of the sync; takes precedence over the interval.
+         */
+        private String cron;
+
+        /**
+         * Delay between the end of one sync and the start of the next.
+         */
+        private Duration interval;
+
+        /**
+         * Whether pagination links are followed until items older than the watermark are reached.
+         */
+        private boolean followPagination = true;
+    }
+
+    @Data
+    public static class AdaptiveConcurrency {
+
+        /**
+         * Whether the per-host limit grows additively while responses stay fast and shrinks
+         * multiplicatively on 429/503 or rising latency. Retry-After is honoured either way.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Lower bound of the per-host limit; at least 1 and at most {@code max-concurrency-per-host}.
+         */
+        private int minLimit = 1;
+
+        /**
+         * Upper bound of the per-host limit; at least {@code max-concurrency-per-host}.
+         */
+        private int maxLimit = 64;
+
+        /**
+         * Factor the per-host limit is multiplied by on a backoff, between 0 and 1 exclusive.
+         */
+        private double backoffRatio = 0.5;
+
+        /**
+         * A response slower than this multiple of the host's typical latency counts as congestion.
+         */
+        private double latencyTolerance = 2.0;
+
+        /**
+         * How long a host is paused after a 429/503 without a Retry-After header.
+         */
+        private Duration defaultRetryAfter = Duration.ofSeconds(1);
+
+        /**
+         * Upper bound of a Retry-After pause.
+         */
+        private Duration maxRetryAfter = Duration.ofMinutes(5);
+    }
+
+    @Data
+    public static class Retry {
+
+        /**
+         * Whether failed downloads are queued in failed_downloads and retried in the background.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Attempts, including the first one, after which a download is dead-lettered.
+         */
+        private int maxAttempts = 8;
+
+        /**
+         * Delay before the first retry; each further retry waits {@code multiplier} times longer.
+         */
+        private Duration initialBackoff = Duration.ofMinutes(1);
+
+        private double multiplier = 2.0;
+
+        private Duration maxBackoff = Duration.ofHours(6);
+
+        /**
+         * Share of each delay that is randomized, so failures of one burst are not retried together.
+         */
+        private double jitter = 0.5;
+
+        /**
+         * How often the worker looks for due retries.
+         */
+        private Duration pollInterval = Duration.ofSeconds(30);
+
+        /**
+         * Maximum number of retries started per poll.
+         */
+        private int batchSize = 50;
+    }
+
+    public enum LinkMode {
+        /**
+         * Hard link, falling back to a symbolic link and then a copy.
+         */
+        HARD,
+        /**
+         * Symbolic link, falling back to a copy.
+         */
+        SYMBOLIC,
+        COPY
+    }
+
+    public enum ExtractionMode {
+        /**
+         * Scan the response as it arrives and stop at the first data-content attribute.
+         */
+        STREAMING,
+        /**
+         * Buffer the whole page and parse it into a Jsoup DOM.
+         */
+        JSOUP
+    }
+
 }
@@ -0,0 +1,144 @@
+package com.files.downloader.config;
+
+import com.files.downloader.service.ConcurrencyLimitInterceptor;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.DefaultHttpRequestRetryStrategy;
+import org.apache.hc.client5.http.impl.DefaultRedirectStrategy;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.ProtocolException;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.URI;
+import java.time.Duration;
+
+@Configuration
+public class HttpClientConfig {
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager portalConnectionManager(HttpClientProperties properties) {
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(properties.getMaxTotal())
+                .setMaxConnPerRoute(properties.getMaxPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(timeout(properties.getConnectTimeout()))
+                        .setSocketTimeout(timeout(properties.getReadTimeout()))
+                        .setTimeToLive(TimeValue.ofMilliseconds(properties.getTimeToLive().toMillis()))
+                        .build())
+                .build();
+    }
+
+    /**
+     * Keep-alive client shared by every portal request. Cookies are managed by
+     * {@link com.files.downloader.service.PortalAuthService}, and bodies are passed through undecoded so
+     * downloads are byte-exact.
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient portalHttpClient(PoolingHttpClientConnectionManager portalConnectionManager,
+                                                HttpClientProperties properties,
+                                                PortalProperties portalProperties) {
+        return HttpClients.custom()
+                .setConnectionManager(portalConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(timeout(properties.getConnectionRequestTimeout()))
+                        .setResponseTimeout(timeout(properties.getReadTimeout()))
+                        .build())
+                .setRedirectStrategy(new SafeMethodRedirectStrategy(loginPath(portalProperties)))
+                .setRetryStrategy(new IoErrorRetryStrategy())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(properties.getEvictIdleAfter().toMillis()))
+                .disableCookieManagement()
+                .disableContentCompression()
+                .build();
+    }
+
+    /**
+     * Every request runs under the adaptive per-host limit of
+     * {@link com.files.downloader.service.ConcurrencyLimiter}.
+     */
+    @Bean
+    public RestTemplate portalRestTemplate(CloseableHttpClient portalHttpClient,
+                                           ConcurrencyLimitInterceptor concurrencyLimitInterceptor) {
+        RestTemplate restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(portalHttpClient));
+        restTemplate.getInterceptors().add(concurrencyLimitInterceptor);
+        return restTemplate;
+    }
+
+    /**
+     * Publishes pool occupancy (leased, available, pending, max) under httpcomponents.httpclient.pool.*.
+     */
+    @Bean
+    public MeterBinder portalConnectionPoolMetrics(PoolingHttpClientConnectionManager portalConnectionManager) {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(portalConnectionManager, "portal");
+    }
+
+    private static Timeout timeout(Duration duration) {
+        return Timeout.ofMilliseconds(duration.toMillis());
+    }
+
+    private static String loginPath(PortalProperties portalProperties) {
+        if (portalProperties.getLoginUrl() == null) {
+            return null;
+        }
+        String path = URI.create(portalProperties.getLoginUrl()).getPath();
+        return path == null || path.isEmpty() ? null : path;
+    }
+
+    /**
+     * Follows redirects for GET and HEAD only, so a login POST answered with a redirect still
+     * exposes its Set-Cookie headers, as with the JDK client used before. A redirect to the login page
+     * is not followed either: it reaches the caller, which logs in again instead of reading the login
+     * page as content.
+     */
+    private static class SafeMethodRedirectStrategy extends DefaultRedirectStrategy {
+
+        private final String loginPath;
+
+        private SafeMethodRedirectStrategy(String loginPath) {
+            this.loginPath = loginPath;
+        }
+
+        @Override
+        public boolean isRedirected(HttpRequest request, HttpResponse response, HttpContext context)
+                throws ProtocolException {
+            String method = request.getMethod();
+            if (!("GET".equalsIgnoreCase(method) || "HEAD".equalsIgnoreCase(method))
+                    || !super.isRedirected(request, response, context)) {
+                return false;
+            }
+            try {
+                return loginPath == null || !loginPath.equals(getLocationURI(request, response, context).getPath());
+            } catch (HttpException e) {
+                // An unusable Location is handed to the caller as is.
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Retries idempotent requests after I/O errors only. 429 and 503 reach
+     * {@link ConcurrencyLimitInterceptor}, which backs off, waits for Retry-After and resends.
+     */
+    private static class IoErrorRetryStrategy extends DefaultHttpRequestRetryStrategy {
+
+        @Override
+        public boolean retryRequest(HttpResponse response, int execCount, HttpContext context) {
+            return false;
+        }
+    }
+
+}
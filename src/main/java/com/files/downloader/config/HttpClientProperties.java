@@ -0,0 +1,46 @@
+package com.files.downloader.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.http")
+@Data
+public class HttpClientProperties {
+
+    /**
+     * Maximum number of pooled connections across all routes.
+     */
+    private int maxTotal = 64;
+
+    /**
+     * Maximum number of pooled connections per route (scheme, host and port).
+     */
+    private int maxPerRoute = 16;
+
+    private Duration connectTimeout = Duration.ofSeconds(10);
+
+    /**
+     * Socket read timeout; a stalled response body fails after this long without data.
+     */
+    private Duration readTimeout = Duration.ofSeconds(60);
+
+    /**
+     * How long a request waits for a free pooled connection.
+     */
+    private Duration connectionRequestTimeout = Duration.ofSeconds(30);
+
+    /**
+     * Idle connections are closed after this long.
+     */
+    private Duration evictIdleAfter = Duration.ofSeconds(30);
+
+    /**
+     * Maximum lifetime of a pooled connection.
+     */
+    private Duration timeToLive = Duration.ofMinutes(5);
+
+}
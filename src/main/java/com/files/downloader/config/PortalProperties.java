@@ -5,6 +5,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
 @ConfigurationProperties(prefix = "app.portal")
 @Slf4j
@@ -19,4 +21,9 @@ public class PortalProperties {
 
     private String password;
 
+    /**
+     * How long a login session is reused when the portal does not send a cookie expiry.
+     */
+    private Duration sessionTtl = Duration.ofMinutes(30);
+
 }
@@ -1,46 +1,198 @@
 package com.files.downloader.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.files.downloader.dto.DownloadJobDTO;
 import com.files.downloader.dto.DownloadResponseDTO;
 import com.files.downloader.dto.PageRequestDTO;
-import com.files.downloader.repository.DownloadedFileRepository;
-import com.files.downloader.service.FileDownloadService;
+import com.files.downloader.model.DownloadedFile;
+import com.files.downloader.service.DownloadJob;
+import com.files.downloader.service.DownloadJobService;
+import com.files.downloader.service.DownloadedFileExportService;
+import com.files.downloader.service.DownloadedFileQueryService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api")
 public class DownloadController {
 
-    private final FileDownloadService fileDownloadService;
-    private final DownloadedFileRepository downloadedFileRepository;
+    private static final String NDJSON = "application/x-ndjson";
 
-    public DownloadController(FileDownloadService fileDownloadService,
-                              DownloadedFileRepository downloadedFileRepository) {
-        this.fileDownloadService = fileDownloadService;
-        this.downloadedFileRepository = downloadedFileRepository;
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private static final MediaType ZIP = MediaType.parseMediaType("application/zip");
+
+    private final DownloadJobService downloadJobService;
+    private final DownloadedFileQueryService downloadedFileQueryService;
+    private final DownloadedFileExportService downloadedFileExportService;
+    private final ObjectMapper objectMapper;
+
+    public DownloadController(DownloadJobService downloadJobService,
+                              DownloadedFileQueryService downloadedFileQueryService,
+                              DownloadedFileExportService downloadedFileExportService,
+                              ObjectMapper objectMapper) {
+        this.downloadJobService = downloadJobService;
+        this.downloadedFileQueryService = downloadedFileQueryService;
+        this.downloadedFileExportService = downloadedFileExportService;
+        this.objectMapper = objectMapper;
     }
 
     /**
-     * Triggers the download process. The server logs in to the portal with the configured credentials,
-     * scrapes file links, downloads new files, and stores the records.
+     * Queues the download process and returns its job right away. The job logs in to the portal with the
+     * configured credentials, crawls the requested pages, scrapes file links, downloads new files, and
+     * stores the records. Responds with 400 for an invalid page pattern and 429 when the job queue is full.
      */
     @PostMapping("/download-files")
-    public ResponseEntity<String> downloadFiles(@RequestBody(required = false) PageRequestDTO pageRequest) {
-        fileDownloadService.fetchAndDownloadFiles(pageRequest.getPageName());
-        return ResponseEntity.ok("Download process initiated");
+    public ResponseEntity<DownloadJobDTO> downloadFiles(@RequestBody(required = false) PageRequestDTO pageRequest) {
+        DownloadJob job;
+        try {
+            job = downloadJobService.submit(pageRequest);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+        }
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/jobs/" + job.getId()))
+                .body(new DownloadJobDTO(job));
+    }
+
+    /**
+     * Returns the state and progress counters of a download job.
+     */
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<DownloadJobDTO> getJob(@PathVariable String id) {
+        return downloadJobService.find(id)
+                .map(job -> ResponseEntity.ok(new DownloadJobDTO(job)))
+                .orElse(ResponseEntity.notFound().build());
     }
 
     /**
-     * Returns a list of downloaded file records.
+     * Returns one page of downloaded file records downloaded in [from, to), oldest first. When more records
+     * follow, the {@code Link} header carries the {@code rel="next"} URL with the cursor of the next page.
      */
     @GetMapping("/downloaded-files")
-    public ResponseEntity<List<DownloadResponseDTO>> getDownloadedFiles() {
-        List<DownloadResponseDTO> files = downloadedFileRepository.findAll().stream()
-                .map(file -> new DownloadResponseDTO(file.getFileUrl(), file.getLocalPath(), file.getDownloadedAt()))
-                .toList();
-        return ResponseEntity.ok(files);
+    public ResponseEntity<List<DownloadResponseDTO>> getDownloadedFiles(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        List<DownloadResponseDTO> files;
+        try {
+            files = downloadedFileQueryService.page(from, to, cursor, pageSize);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (files.size() < pageSize) {
+            return ResponseEntity.ok(files);
+        }
+        String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("cursor", downloadedFileQueryService.cursorAfter(files.getLast()))
+                .replaceQueryParam("limit", pageSize)
+                .toUriString();
+        return ResponseEntity.ok()
+                .header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"")
+                .body(files);
+    }
+
+    /**
+     * Streams every downloaded file record in [from, to) as newline-delimited JSON, oldest first,
+     * reading the table in fetch-size chunks so memory use does not grow with the number of rows.
+     */
+    @GetMapping(value = "/downloaded-files", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamDownloadedFiles(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        StreamingResponseBody body = out -> {
+            ObjectWriter writer = objectMapper.writerFor(DownloadResponseDTO.class);
+            downloadedFileQueryService.forEach(from, to, file -> {
+                try {
+                    out.write(writer.writeValueAsBytes(file));
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(body);
+    }
+
+    /**
+     * Streams the selected downloaded files as a ZIP archive: the records with the given ids, or one page
+     * of records as returned by {@code GET /downloaded-files} when a cursor or limit is given, or else
+     * every record downloaded in [from, to). Responds with 400 for an invalid cursor or more than
+     * 1000 ids.
+     */
+    @GetMapping(value = "/downloaded-files/export", produces = "application/zip")
+    public ResponseEntity<StreamingResponseBody> exportDownloadedFiles(
+            @RequestParam(required = false) List<Long> ids,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        StreamingResponseBody body;
+        if (ids != null && !ids.isEmpty()) {
+            if (ids.size() > MAX_PAGE_SIZE) {
+                return ResponseEntity.badRequest().build();
+            }
+            List<DownloadResponseDTO> files = downloadedFileQueryService.byIds(ids);
+            body = out -> downloadedFileExportService.export(files, out);
+        } else if (cursor != null || limit != null) {
+            List<DownloadResponseDTO> files;
+            try {
+                files = downloadedFileQueryService.page(from, to, cursor,
+                        Math.clamp(limit != null ? limit : 100, 1, MAX_PAGE_SIZE));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+            body = out -> downloadedFileExportService.export(files, out);
+        } else {
+            body = out -> downloadedFileExportService.export(from, to, out);
+        }
+        return ResponseEntity.ok()
+                .contentType(ZIP)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename("downloaded-files.zip").build().toString())
+                .body(body);
+    }
+
+    /**
+     * Serves the content of a downloaded file with single byte ranges, ETag (the content digest) and
+     * Last-Modified validators and 304 responses, without copying it through the heap. Responds with 404
+     * if the record or its file does not exist.
+     */
+    @GetMapping("/downloaded-files/{id}/content")
+    public void getDownloadedFileContent(@PathVariable long id, HttpServletRequest request,
+                                         HttpServletResponse response) throws IOException {
+        DownloadedFile file = downloadedFileQueryService.find(id).orElse(null);
+        Path path = file == null ? null : Path.of(file.getLocalPath());
+        if (path == null || !Files.isRegularFile(path)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        FileContentResponder.serve(path, file.getContentSha256(), request, response);
     }
 }
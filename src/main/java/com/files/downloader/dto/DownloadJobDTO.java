@@ -0,0 +1,66 @@
+package com.files.downloader.dto;
+
+import com.files.downloader.service.DownloadJob;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+public class DownloadJobDTO {
+
+    private String id;
+
+    private String name;
+
+    private List<String> pageNames;
+
+    private boolean followPagination;
+
+    private boolean incremental;
+
+    private DownloadJob.Status status;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+
+    private String error;
+
+    private long pagesFetched;
+
+    private long pagesFailed;
+
+    private long itemsFound;
+
+    private long itemsSkipped;
+
+    private long itemsDownloaded;
+
+    private long itemsFailed;
+
+    private long bytes;
+
+    public DownloadJobDTO(DownloadJob job) {
+        this.id = job.getId();
+        this.name = job.getName();
+        this.pageNames = job.getPageNames();
+        this.followPagination = job.isFollowPagination();
+        this.incremental = job.isIncremental();
+        this.status = job.getStatus();
+        this.createdAt = job.getCreatedAt();
+        this.startedAt = job.getStartedAt();
+        this.finishedAt = job.getFinishedAt();
+        this.error = job.getError();
+        this.pagesFetched = job.getPagesFetched().get();
+        this.pagesFailed = job.getPagesFailed().get();
+        this.itemsFound = job.getItemsFound().get();
+        this.itemsSkipped = job.getItemsSkipped().get();
+        this.itemsDownloaded = job.getItemsDownloaded().get();
+        this.itemsFailed = job.getItemsFailed().get();
+        this.bytes = job.getBytes().get();
+    }
+
+}
@@ -7,13 +7,16 @@ import java.time.LocalDateTime;
 @Data
 public class DownloadResponseDTO {
 
+    private Long id;
+
     private String fileUrl;
 
     private String localPath;
 
     private LocalDateTime downloadedAt;
 
-    public DownloadResponseDTO(String fileUrl, String localPath, LocalDateTime downloadedAt) {
+    public DownloadResponseDTO(Long id, String fileUrl, String localPath, LocalDateTime downloadedAt) {
+        this.id = id;
         this.fileUrl = fileUrl;
         this.localPath = localPath;
         this.downloadedAt = downloadedAt;
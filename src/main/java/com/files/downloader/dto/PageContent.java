@@ -0,0 +1,34 @@
+package com.files.downloader.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class PageContent {
+
+    /**
+     * The data-content attribute value; null if the page has none or was not modified.
+     */
+    private String dataContent;
+
+    /**
+     * True when the portal answered 304 Not Modified to a conditional request.
+     */
+    private boolean notModified;
+
+    private String etag;
+
+    private String lastModified;
+
+    /**
+     * Decoded body bytes read until the data-content was extracted.
+     */
+    private long bytes;
+
+    /**
+     * Bytes received for those, before decompression.
+     */
+    private long transferredBytes;
+
+}
@@ -5,6 +5,8 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.util.List;
+
 @Getter
 @Setter
 @AllArgsConstructor
@@ -13,4 +15,29 @@ public class PageRequestDTO {
 
     private String pageName;
 
+    /**
+     * Name of the job; defaults to "manual". Metrics are tagged with it only if it is listed in
+     * {@code download.jobs.metric-names}, otherwise with "other".
+     */
+    private String jobName;
+
+    /**
+     * Further page names to crawl, each appended to the resource url.
+     */
+    private List<String> pageNames;
+
+    /**
+     * Page name template with an {@code {n}} placeholder, expanded for n from firstPage to lastPage.
+     */
+    private String pagePattern;
+
+    private Integer firstPage;
+
+    private Integer lastPage;
+
+    /**
+     * Whether pagination links found in the data-content JSON of each page are crawled as well.
+     */
+    private boolean followPagination;
+
 }
@@ -0,0 +1,23 @@
+package com.files.downloader.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+
+@Getter
+@AllArgsConstructor
+public class PortalSession {
+
+    /**
+     * Value of the Cookie header to send with authenticated requests.
+     */
+    private String cookie;
+
+    private Instant expiresAt;
+
+    public boolean isValidAt(Instant now) {
+        return now.isBefore(expiresAt);
+    }
+
+}
@@ -0,0 +1,45 @@
+package com.files.downloader.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.file.Path;
+
+@Getter
+@AllArgsConstructor
+public class TransferResult {
+
+    private Path path;
+
+    private long bytes;
+
+    private long elapsedNanos;
+
+    /**
+     * SHA-256 of the whole file, hex encoded.
+     */
+    private String contentSha256;
+
+    private long contentLength;
+
+    /**
+     * Strong ETag the file was served with, or null.
+     */
+    private String etag;
+
+    /**
+     * Whether the content was already stored, so the download added no bytes to disk.
+     */
+    private boolean deduplicated;
+
+    /**
+     * Average transfer rate of the download in bytes per second.
+     */
+    public long bytesPerSecond() {
+        if (elapsedNanos <= 0) {
+            return bytes;
+        }
+        return (long) (bytes * 1_000_000_000d / elapsedNanos);
+    }
+
+}
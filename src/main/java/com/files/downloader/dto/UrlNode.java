@@ -7,6 +7,11 @@ public class UrlNode {
 
     String formattedDate;
 
+    /**
+     * The item date in epoch seconds, or null if the item has none.
+     */
+    Long dateEpochSeconds;
+
     String url;
 
     int vote;
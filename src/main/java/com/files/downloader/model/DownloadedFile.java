@@ -16,7 +16,7 @@ public class DownloadedFile {
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "RD_UNIQUE_ID")
-    @SequenceGenerator(name = "RD_UNIQUE_ID", sequenceName = "RD_UNIQUE_ID", allocationSize = 1)
+    @SequenceGenerator(name = "RD_UNIQUE_ID", sequenceName = "RD_UNIQUE_ID", allocationSize = 50)
     @Column(name = "id", nullable = false)
     private Long id;
 
@@ -29,10 +29,36 @@ public class DownloadedFile {
     @Column(nullable = false)
     private LocalDateTime downloadedAt;
 
+    /**
+     * Id of the listing item the file was resolved from.
+     */
+    @Column
+    private String sourceId;
+
+    /**
+     * SHA-256 of the file content, hex encoded.
+     */
+    @Column(length = 64)
+    private String contentSha256;
+
+    @Column
+    private Long contentLength;
+
+    /**
+     * Strong ETag the file was served with.
+     */
+    @Column
+    private String etag;
+
     public DownloadedFile(String fileUrl, String localPath, LocalDateTime downloadedAt) {
         this.fileUrl = fileUrl;
         this.localPath = localPath;
         this.downloadedAt = downloadedAt;
     }
 
+    public DownloadedFile(String fileUrl, String localPath, LocalDateTime downloadedAt, String sourceId) {
+        this(fileUrl, localPath, downloadedAt);
+        this.sourceId = sourceId;
+    }
+
 }
@@ -0,0 +1,78 @@
+package com.files.downloader.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * A resolved download that failed, retried by the background worker until it succeeds or is dead-lettered.
+ */
+@Entity
+@Table(name = "failed_downloads")
+@Getter
+@Setter
+@NoArgsConstructor
+public class FailedDownload {
+
+    public enum Status {
+        PENDING,
+        /**
+         * Gave up after {@code download.retry.max-attempts}; kept for inspection.
+         */
+        DEAD
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "RD_UNIQUE_ID")
+    @SequenceGenerator(name = "RD_UNIQUE_ID", sequenceName = "RD_UNIQUE_ID", allocationSize = 50)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    /**
+     * Id resolved from the item's detail page.
+     */
+    @Column(nullable = false)
+    private String downloadId;
+
+    @Column(nullable = false, unique = true, length = 512)
+    private String fileUrl;
+
+    /**
+     * Target file name, relative to {@code download.dir}.
+     */
+    @Column(nullable = false, length = 512)
+    private String fileName;
+
+    @Column
+    private String sourceId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status = Status.PENDING;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(length = 1024)
+    private String lastError;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    public FailedDownload(String downloadId, String fileUrl, String fileName, String sourceId) {
+        this.downloadId = downloadId;
+        this.fileUrl = fileUrl;
+        this.fileName = fileName;
+        this.sourceId = sourceId;
+    }
+
+}
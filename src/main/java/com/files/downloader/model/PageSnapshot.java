@@ -0,0 +1,54 @@
+package com.files.downloader.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Validators, item digest and page links of the last fully processed version of a listing page.
+ */
+@Entity
+@Table(name = "page_snapshots")
+@Getter
+@Setter
+@NoArgsConstructor
+public class PageSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "RD_UNIQUE_ID")
+    @SequenceGenerator(name = "RD_UNIQUE_ID", sequenceName = "RD_UNIQUE_ID", allocationSize = 50)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 1024)
+    private String pageUrl;
+
+    @Column
+    private String etag;
+
+    @Column
+    private String lastModified;
+
+    /**
+     * SHA-256 of the url nodes extracted from the page.
+     */
+    @Column(nullable = false)
+    private String contentDigest;
+
+    /**
+     * Resolved urls of the listing pages the page links to, one per line.
+     */
+    @Column(columnDefinition = "text")
+    private String pageLinks;
+
+    @Column(nullable = false)
+    private LocalDateTime checkedAt;
+
+    public PageSnapshot(String pageUrl) {
+        this.pageUrl = pageUrl;
+    }
+
+}
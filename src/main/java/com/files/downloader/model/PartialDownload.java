@@ -0,0 +1,58 @@
+package com.files.downloader.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of an interrupted download, used to continue it with a Range request.
+ */
+@Entity
+@Table(name = "partial_downloads")
+@Getter
+@Setter
+@NoArgsConstructor
+public class PartialDownload {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "RD_UNIQUE_ID")
+    @SequenceGenerator(name = "RD_UNIQUE_ID", sequenceName = "RD_UNIQUE_ID", allocationSize = 50)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @Column(nullable = false, unique = true)
+    private String fileUrl;
+
+    @Column(nullable = false)
+    private String partPath;
+
+    /**
+     * Strong ETag of the representation being downloaded, sent back as If-Range.
+     */
+    @Column
+    private String etag;
+
+    /**
+     * Last-Modified of the representation, used as If-Range when there is no strong ETag.
+     */
+    @Column
+    private String lastModified;
+
+    @Column
+    private Long expectedLength;
+
+    @Column(nullable = false)
+    private long downloadedBytes;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    public PartialDownload(String fileUrl, String partPath) {
+        this.fileUrl = fileUrl;
+        this.partPath = partPath;
+    }
+
+}
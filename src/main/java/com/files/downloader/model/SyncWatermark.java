@@ -0,0 +1,42 @@
+package com.files.downloader.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Date of the newest item an incremental sync of a page has fully processed.
+ */
+@Entity
+@Table(name = "sync_watermarks")
+@Getter
+@Setter
+@NoArgsConstructor
+public class SyncWatermark {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "RD_UNIQUE_ID")
+    @SequenceGenerator(name = "RD_UNIQUE_ID", sequenceName = "RD_UNIQUE_ID", allocationSize = 50)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 1024)
+    private String pageUrl;
+
+    /**
+     * Item date in epoch seconds; items dated before it are not considered again.
+     */
+    @Column(nullable = false)
+    private long watermarkEpochSeconds;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    public SyncWatermark(String pageUrl) {
+        this.pageUrl = pageUrl;
+    }
+
+}
@@ -1,10 +1,70 @@
 package com.files.downloader.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import com.files.downloader.dto.DownloadResponseDTO;
 import com.files.downloader.model.DownloadedFile;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface DownloadedFileRepository extends JpaRepository<DownloadedFile, Long> {
     Optional<DownloadedFile> findByFileUrl(String fileUrl);
+
+    boolean existsByFileUrl(String fileUrl);
+
+    boolean existsBySourceId(String sourceId);
+
+    Optional<DownloadedFile> findFirstByEtagAndContentLengthAndContentSha256NotNull(String etag, Long contentLength);
+
+    @Query("select f.fileUrl from DownloadedFile f")
+    Stream<String> streamAllFileUrls();
+
+    @Query("select f.sourceId from DownloadedFile f where f.sourceId is not null")
+    Stream<String> streamAllSourceIds();
+
+    /**
+     * One keyset page of records downloaded in [from, to), ordered by (downloadedAt, id) and starting after
+     * the given position. Served by idx_downloaded_files_downloaded_at_id.
+     */
+    @Query("""
+            select new com.files.downloader.dto.DownloadResponseDTO(f.id, f.fileUrl, f.localPath, f.downloadedAt)
+            from DownloadedFile f
+            where f.downloadedAt >= :from and f.downloadedAt < :to
+              and (f.downloadedAt > :afterDownloadedAt or (f.downloadedAt = :afterDownloadedAt and f.id > :afterId))
+            order by f.downloadedAt, f.id
+            """)
+    List<DownloadResponseDTO> findPageAfter(@Param("from") LocalDateTime from,
+                                            @Param("to") LocalDateTime to,
+                                            @Param("afterDownloadedAt") LocalDateTime afterDownloadedAt,
+                                            @Param("afterId") long afterId,
+                                            Pageable pageable);
+
+    @Query("""
+            select new com.files.downloader.dto.DownloadResponseDTO(f.id, f.fileUrl, f.localPath, f.downloadedAt)
+            from DownloadedFile f
+            where f.id in :ids
+            """)
+    List<DownloadResponseDTO> findAllByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Every record downloaded in [from, to), ordered by (downloadedAt, id), read in fetch-size chunks.
+     * Must be consumed and closed inside a transaction.
+     */
+    @Query("""
+            select new com.files.downloader.dto.DownloadResponseDTO(f.id, f.fileUrl, f.localPath, f.downloadedAt)
+            from DownloadedFile f
+            where f.downloadedAt >= :from and f.downloadedAt < :to
+            order by f.downloadedAt, f.id
+            """)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<DownloadResponseDTO> streamBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 }
@@ -0,0 +1,20 @@
+package com.files.downloader.repository;
+
+import com.files.downloader.model.FailedDownload;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface FailedDownloadRepository extends JpaRepository<FailedDownload, Long> {
+    Optional<FailedDownload> findByFileUrl(String fileUrl);
+
+    @Query("select f from FailedDownload f where f.status = 'PENDING' and f.nextAttemptAt <= :now order by f.nextAttemptAt")
+    List<FailedDownload> findDue(@Param("now") LocalDateTime now, Pageable pageable);
+
+    long countByStatus(FailedDownload.Status status);
+}
@@ -0,0 +1,10 @@
+package com.files.downloader.repository;
+
+import com.files.downloader.model.PageSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface PageSnapshotRepository extends JpaRepository<PageSnapshot, Long> {
+    Optional<PageSnapshot> findByPageUrl(String pageUrl);
+}
@@ -0,0 +1,10 @@
+package com.files.downloader.repository;
+
+import com.files.downloader.model.PartialDownload;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface PartialDownloadRepository extends JpaRepository<PartialDownload, Long> {
+    Optional<PartialDownload> findByFileUrl(String fileUrl);
+}
@@ -0,0 +1,10 @@
+package com.files.downloader.repository;
+
+import com.files.downloader.model.SyncWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface SyncWatermarkRepository extends JpaRepository<SyncWatermark, Long> {
+    Optional<SyncWatermark> findByPageUrl(String pageUrl);
+}
@@ -0,0 +1,93 @@
+package com.files.downloader.service;
+
+import com.files.downloader.config.DownloadProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Content-addressed store for downloaded files under {@code download.dir/.blobs}: each distinct content is
+ * kept once, at a path derived from its SHA-256, and the readable file names are links to it.
+ */
+@Component
+@Slf4j
+public class BlobStore {
+
+    private final Path root;
+
+    private final DownloadProperties.LinkMode linkMode;
+
+    public BlobStore(DownloadProperties downloadProperties) {
+        this.root = Path.of(downloadProperties.getDir(), ".blobs").toAbsolutePath();
+        this.linkMode = downloadProperties.getStorage().getLinkMode();
+    }
+
+    /**
+     * Location of the blob with the given SHA-256, e.g. {@code .blobs/ab/cd/abcd...}.
+     */
+    public Path blobPath(String sha256) {
+        return root.resolve(sha256.substring(0, 2)).resolve(sha256.substring(2, 4)).resolve(sha256);
+    }
+
+    public boolean contains(String sha256) {
+        return Files.exists(blobPath(sha256));
+    }
+
+    /**
+     * Moves a completed download into the store, or deletes it if the store already holds the same content.
+     *
+     * @return whether the content was already stored
+     */
+    public boolean store(Path file, String sha256) throws IOException {
+        Path blob = blobPath(sha256);
+        if (Files.exists(blob)) {
+            Files.delete(file);
+            return true;
+        }
+        Files.createDirectories(blob.getParent());
+        try {
+            Files.move(file, blob, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(file, blob);
+        } catch (FileAlreadyExistsException e) {
+            // Another download of the same content got there first.
+            Files.delete(file);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Points the target name at the blob, replacing any existing file of that name. Falls back from a
+     * hard link to a symbolic link to a copy when the file system does not support the configured mode.
+     */
+    public void link(String sha256, Path target) throws IOException {
+        Path blob = blobPath(sha256);
+        Files.createDirectories(target.getParent());
+        Files.deleteIfExists(target);
+        if (linkMode == DownloadProperties.LinkMode.HARD) {
+            try {
+                Files.createLink(target, blob);
+                return;
+            } catch (UnsupportedOperationException | IOException e) {
+                log.debug("Hard link to {} not possible, using a symbolic link: {}", blob, e.getMessage());
+            }
+        }
+        if (linkMode != DownloadProperties.LinkMode.COPY) {
+            try {
+                Files.createSymbolicLink(target, blob);
+                return;
+            } catch (UnsupportedOperationException | IOException e) {
+                log.debug("Symbolic link to {} not possible, copying: {}", blob, e.getMessage());
+            }
+        }
+        Files.copy(blob, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+}
@@ -0,0 +1,142 @@
+package com.files.downloader.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Runs every portal request under a {@link ConcurrencyLimiter} permit, held until the response is closed,
+ * and feeds the response status and latency back into the limiter. A GET or HEAD answered with 429/503 is
+ * sent once more after the host's Retry-After pause.
+ */
+@Component
+@Slf4j
+public class ConcurrencyLimitInterceptor implements ClientHttpRequestInterceptor {
+
+    private final ConcurrencyLimiter concurrencyLimiter;
+
+    public ConcurrencyLimitInterceptor(ConcurrencyLimiter concurrencyLimiter) {
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        boolean retryable = HttpMethod.GET.equals(request.getMethod()) || HttpMethod.HEAD.equals(request.getMethod());
+        while (true) {
+            ConcurrencyLimiter.Permit permit = acquire(request);
+            ClientHttpResponse response;
+            try {
+                response = execution.execute(request, body);
+            } catch (SocketTimeoutException e) {
+                permit.onTimeout();
+                permit.close();
+                throw e;
+            } catch (IOException | RuntimeException e) {
+                permit.close();
+                throw e;
+            }
+            int status = response.getStatusCode().value();
+            permit.onResponse(status, retryAfter(response.getHeaders()));
+            if (retryable && (status == 429 || status == 503)) {
+                response.close();
+                permit.close();
+                retryable = false;
+                log.info("Retrying {} after {}", request.getURI(), status);
+                continue;
+            }
+            return new PermitResponse(response, permit);
+        }
+    }
+
+    private ConcurrencyLimiter.Permit acquire(HttpRequest request) throws InterruptedIOException {
+        try {
+            return concurrencyLimiter.acquire(request.getURI().toString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a portal request slot");
+        }
+    }
+
+    /**
+     * Parses Retry-After as delay seconds or an HTTP date.
+     */
+    private static Duration retryAfter(HttpHeaders headers) {
+        String value = headers.getFirst(HttpHeaders.RETRY_AFTER);
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim())));
+        } catch (NumberFormatException e) {
+            try {
+                Duration delay = Duration.between(ZonedDateTime.now(),
+                        ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME));
+                return delay.isNegative() ? Duration.ZERO : delay;
+            } catch (DateTimeParseException ignored) {
+                log.debug("Ignoring invalid Retry-After: {}", value);
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Releases the permit when the response is closed, i.e. after its body was consumed.
+     */
+    private static final class PermitResponse implements ClientHttpResponse {
+
+        private final ClientHttpResponse response;
+
+        private final ConcurrencyLimiter.Permit permit;
+
+        private PermitResponse(ClientHttpResponse response, ConcurrencyLimiter.Permit permit) {
+            this.response = response;
+            this.permit = permit;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return response.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return response.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return response.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return response.getBody();
+        }
+
+        @Override
+        public void close() {
+            try {
+                response.close();
+            } finally {
+                permit.close();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,316 @@
+package com.files.downloader.service;
+
+import com.files.downloader.config.DownloadProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounds the number of portal requests in flight, both globally and per host.
+ * <p>
+ * The per-host limit is adaptive (AIMD): it starts at {@code download.max-concurrency-per-host}, grows by
+ * about one per round trip while the host answers within {@code latency-tolerance} times its typical
+ * latency, and is multiplied by {@code backoff-ratio} on a 429/503, a timeout or a slow response. Requests
+ * sent before a backoff do not cause another one. A 429/503 also pauses the host for its Retry-After.
+ * <p>
+ * Publishes {@code portal.concurrency.limit} and {@code portal.concurrency.in.flight} per host, and counts
+ * throttled responses in {@code portal.throttled} and backoffs in {@code portal.concurrency.backoff}.
+ */
+@Component
+@Slf4j
+public class ConcurrencyLimiter {
+
+    /**
+     * Weight of a new sample in a host's typical latency.
+     */
+    private static final double LATENCY_WEIGHT = 0.1;
+
+    private final Semaphore global;
+
+    private final DownloadProperties.AdaptiveConcurrency adaptive;
+
+    private final int initialLimit;
+
+    private final MeterRegistry registry;
+
+    private final Map<String, HostLimit> perHost = new ConcurrentHashMap<>();
+
+    /**
+     * @throws IllegalStateException if the adaptive limits are inconsistent
+     */
+    public ConcurrencyLimiter(DownloadProperties downloadProperties, MeterRegistry registry) {
+        validate(downloadProperties);
+        this.global = new Semaphore(Math.max(1, downloadProperties.getMaxConcurrency()), true);
+        this.adaptive = downloadProperties.getAdaptiveConcurrency();
+        this.initialLimit = Math.max(1, downloadProperties.getMaxConcurrencyPerHost());
+        this.registry = registry;
+    }
+
+    /**
+     * Blocks until the host of the given url is not paused and both a global and a per-host slot are
+     * available.
+     *
+     * @param url the url about to be requested
+     * @return the permit, to be closed once the response is consumed
+     */
+    public Permit acquire(String url) throws InterruptedException {
+        HostLimit host = perHost.computeIfAbsent(hostOf(url), this::newHostLimit);
+        long epoch = host.acquire();
+        try {
+            global.acquire();
+        } catch (InterruptedException e) {
+            host.release();
+            throw e;
+        }
+        return new Permit(host, epoch);
+    }
+
+    private HostLimit newHostLimit(String host) {
+        HostLimit hostLimit = new HostLimit(host);
+        Gauge.builder("portal.concurrency.limit", hostLimit, HostLimit::currentLimit)
+                .description("Current limit of portal requests in flight per host")
+                .tag("host", host)
+                .register(registry);
+        Gauge.builder("portal.concurrency.in.flight", hostLimit, HostLimit::currentInFlight)
+                .description("Portal requests in flight per host")
+                .tag("host", host)
+                .register(registry);
+        return hostLimit;
+    }
+
+    private static void validate(DownloadProperties downloadProperties) {
+        DownloadProperties.AdaptiveConcurrency adaptive = downloadProperties.getAdaptiveConcurrency();
+        if (!adaptive.isEnabled()) {
+            return;
+        }
+        int initial = downloadProperties.getMaxConcurrencyPerHost();
+        if (adaptive.getMinLimit() < 1 || adaptive.getMinLimit() > initial || initial > adaptive.getMaxLimit()) {
+            throw new IllegalStateException("Adaptive concurrency needs 1 <= min-limit <= max-concurrency-per-host"
+                    + " <= max-limit, got " + adaptive.getMinLimit() + ", " + initial + " and "
+                    + adaptive.getMaxLimit());
+        }
+        if (!(adaptive.getBackoffRatio() > 0 && adaptive.getBackoffRatio() < 1)) {
+            throw new IllegalStateException("Adaptive concurrency needs 0 < backoff-ratio < 1, got "
+                    + adaptive.getBackoffRatio());
+        }
+    }
+
+    private static String hostOf(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host == null ? "" : host.toLowerCase(Locale.ROOT);
+        } catch (IllegalArgumentException e) {
+            return "";
+        }
+    }
+
+    private final class HostLimit {
+
+        private final String host;
+
+        // A lock instead of synchronized so waiting virtual threads are not pinned.
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private final Condition changed = lock.newCondition();
+
+        private double limit = initialLimit;
+
+        private int inFlight;
+
+        /**
+         * Incremented on every backoff; a permit acquired in an earlier epoch cannot back off again.
+         */
+        private long epoch;
+
+        private double typicalLatencyNanos;
+
+        private long pausedUntilNanos;
+
+        private boolean paused;
+
+        private HostLimit(String host) {
+            this.host = host;
+        }
+
+        private long acquire() throws InterruptedException {
+            lock.lock();
+            try {
+                while (true) {
+                    long pause = paused ? pausedUntilNanos - System.nanoTime() : 0;
+                    if (pause > 0) {
+                        changed.awaitNanos(pause);
+                        continue;
+                    }
+                    paused = false;
+                    if (inFlight < (int) limit) {
+                        inFlight++;
+                        return epoch;
+                    }
+                    changed.await();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void release() {
+            lock.lock();
+            try {
+                inFlight--;
+                changed.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void completed(long permitEpoch, long latencyNanos) {
+            lock.lock();
+            try {
+                if (typicalLatencyNanos == 0) {
+                    typicalLatencyNanos = latencyNanos;
+                    return;
+                }
+                boolean slow = latencyNanos > adaptive.getLatencyTolerance() * typicalLatencyNanos;
+                typicalLatencyNanos += LATENCY_WEIGHT * (latencyNanos - typicalLatencyNanos);
+                if (slow) {
+                    backOff(permitEpoch, "latency");
+                } else if (adaptive.isEnabled() && inFlight * 2 >= limit) {
+                    // Only grow while the current limit is actually used.
+                    int before = (int) limit;
+                    limit = Math.min(adaptive.getMaxLimit(), limit + 1 / limit);
+                    if ((int) limit > before) {
+                        changed.signalAll();
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void throttled(long permitEpoch, int status, Duration retryAfter) {
+            Counter.builder("portal.throttled")
+                    .description("Portal responses asking the client to slow down")
+                    .tags("host", host, "status", String.valueOf(status))
+                    .register(registry)
+                    .increment();
+            Duration pause = retryAfter != null ? retryAfter : adaptive.getDefaultRetryAfter();
+            if (pause.compareTo(adaptive.getMaxRetryAfter()) > 0) {
+                pause = adaptive.getMaxRetryAfter();
+            }
+            lock.lock();
+            try {
+                long until = System.nanoTime() + pause.toNanos();
+                if (!paused || until - pausedUntilNanos > 0) {
+                    pausedUntilNanos = until;
+                    paused = true;
+                }
+                backOff(permitEpoch, "throttled");
+            } finally {
+                lock.unlock();
+            }
+            log.info("Portal host {} answered {}, pausing it for {} ms", host, status, pause.toMillis());
+        }
+
+        private void timedOut(long permitEpoch) {
+            lock.lock();
+            try {
+                backOff(permitEpoch, "timeout");
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Must be called holding the lock.
+         */
+        private void backOff(long permitEpoch, String reason) {
+            if (!adaptive.isEnabled() || permitEpoch != epoch) {
+                return;
+            }
+            epoch++;
+            limit = Math.max(adaptive.getMinLimit(), limit * adaptive.getBackoffRatio());
+            Counter.builder("portal.concurrency.backoff")
+                    .description("Reductions of the per-host portal request limit")
+                    .tags("host", host, "reason", reason)
+                    .register(registry)
+                    .increment();
+            log.debug("Backed off portal host {} to {} requests ({})", host, (int) limit, reason);
+        }
+
+        private int currentLimit() {
+            lock.lock();
+            try {
+                return (int) limit;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private int currentInFlight() {
+            lock.lock();
+            try {
+                return inFlight;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    public final class Permit implements AutoCloseable {
+
+        private final HostLimit host;
+
+        private final long epoch;
+
+        private final long acquiredAt = System.nanoTime();
+
+        private boolean released;
+
+        private Permit(HostLimit host, long epoch) {
+            this.host = host;
+            this.epoch = epoch;
+        }
+
+        /**
+         * Reports the response status of the request; its latency is measured from the acquisition of
+         * this permit.
+         *
+         * @param retryAfter the Retry-After delay of a 429/503, or null
+         */
+        public void onResponse(int status, Duration retryAfter) {
+            if (status == 429 || status == 503) {
+                host.throttled(epoch, status, retryAfter);
+            } else if (status < 500) {
+                host.completed(epoch, System.nanoTime() - acquiredAt);
+            }
+        }
+
+        /**
+         * Reports that the request timed out.
+         */
+        public void onTimeout() {
+            host.timedOut(epoch);
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                global.release();
+                host.release();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,97 @@
+package com.files.downloader.service;
+
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Content-Encoding negotiation for portal pages. The shared HTTP client passes bodies through undecoded
+ * so downloads stay byte-exact; pages ask for compression explicitly and are decoded here as they stream.
+ * Brotli is offered only when org.brotli:dec is on the classpath.
+ */
+final class ContentDecoding {
+
+    private static final boolean BROTLI_PRESENT =
+            ClassUtils.isPresent("org.brotli.dec.BrotliInputStream", ContentDecoding.class.getClassLoader());
+
+    /**
+     * Accept-Encoding value of page requests.
+     */
+    static final String ACCEPT_ENCODING = BROTLI_PRESENT ? "gzip, deflate, br" : "gzip, deflate";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private ContentDecoding() {
+    }
+
+    /**
+     * Wraps the body in a decoder for its Content-Encoding. Closing the returned stream releases the
+     * decoder but leaves the body open for the HTTP client to reuse the connection.
+     *
+     * @param contentEncoding the Content-Encoding header, or null for an identity body
+     */
+    static InputStream decode(InputStream body, String contentEncoding) throws IOException {
+        InputStream in = StreamUtils.nonClosing(body);
+        if (contentEncoding == null || contentEncoding.isBlank()) {
+            return in;
+        }
+        return switch (contentEncoding.trim().toLowerCase(Locale.ROOT)) {
+            case "identity" -> in;
+            case "gzip", "x-gzip" -> new GZIPInputStream(in, BUFFER_SIZE);
+            case "deflate" -> inflate(in);
+            case "br" -> {
+                if (!BROTLI_PRESENT) {
+                    throw new IOException("Brotli response without a Brotli decoder");
+                }
+                yield Brotli.decode(in);
+            }
+            default -> throw new IOException("Unsupported Content-Encoding: " + contentEncoding);
+        };
+    }
+
+    /**
+     * "deflate" is meant to be zlib-wrapped, but some servers send a raw deflate stream; the first two bytes
+     * tell them apart.
+     */
+    private static InputStream inflate(InputStream in) throws IOException {
+        PushbackInputStream pushback = new PushbackInputStream(in, 2);
+        int first = pushback.read();
+        int second = first < 0 ? -1 : pushback.read();
+        if (second >= 0) {
+            pushback.unread(second);
+        }
+        if (first >= 0) {
+            pushback.unread(first);
+        }
+        boolean zlib = first >= 0 && second >= 0 && (first & 0x0F) == 8 && ((first << 8) | second) % 31 == 0;
+        Inflater inflater = new Inflater(!zlib);
+        return new InflaterInputStream(pushback, inflater, BUFFER_SIZE) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    inflater.end();
+                }
+            }
+        };
+    }
+
+    /**
+     * Loaded only when the Brotli decoder is present.
+     */
+    private static final class Brotli {
+
+        private static InputStream decode(InputStream in) throws IOException {
+            return new org.brotli.dec.BrotliInputStream(in);
+        }
+    }
+
+}
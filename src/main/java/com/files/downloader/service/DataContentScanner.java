@@ -0,0 +1,331 @@
+package com.files.downloader.service;
+
+import org.jsoup.parser.Parser;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Minimal HTML tokenizer that reads a page as it arrives and stops at the first {@code <div>} carrying a
+ * {@code data-content} attribute, without building a DOM. Comments, declarations and raw-text elements
+ * (script, style, textarea, title) are skipped so their contents cannot produce false matches.
+ * <p>
+ * So the caller can hand the page to Jsoup when the markup is too odd for this scanner
+ * ({@link MalformedMarkupException} or {@link #mayHaveMissedAttribute()}), the text from the start of the
+ * current markup construct is retained. Until the attribute name first appears anywhere in the page, that
+ * is only the current tag, comment or raw-text element; from then on everything except the value of the
+ * attribute being read is kept. A page without the name never needs the fallback, since Jsoup could not
+ * find the element either. Instances are single-use and not thread-safe.
+ */
+public final class DataContentScanner {
+
+    private static final String ATTRIBUTE = "data-content";
+
+    private final Reader reader;
+
+    private final char[] buffer = new char[8192];
+
+    private int pos;
+
+    private int limit;
+
+    /**
+     * Text read from the reader since {@link #markupStart}, or since the first mention of the attribute.
+     */
+    private final StringBuilder retained = new StringBuilder();
+
+    /**
+     * Index in {@link #retained} of the {@code <} that opened the construct being tokenized.
+     */
+    private int markupStart;
+
+    private boolean retaining = true;
+
+    private boolean mentioned;
+
+    private int mentionMatched;
+
+    private final StringBuilder token = new StringBuilder(32);
+
+    public DataContentScanner(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Scans the page up to the first {@code <div data-content="...">}.
+     *
+     * @return the entity-decoded attribute value, or null if the page has no such element
+     * @throws MalformedMarkupException if the page ends inside a tag or attribute value
+     */
+    public String scan() throws IOException {
+        int c;
+        while ((c = next()) != -1) {
+            if (c != '<') {
+                continue;
+            }
+            markupStart = retained.length() - (limit - pos + 1);
+            c = next();
+            if (c == '!') {
+                skipDeclaration();
+            } else if (c == '?' || c == '/') {
+                skipPast('>');
+            } else if (isLetter(c)) {
+                String value = readStartTag((char) c);
+                if (value != null) {
+                    return value.indexOf('&') < 0 ? value : Parser.unescapeEntities(value, true);
+                }
+            } else if (c != -1) {
+                unread();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * True when the scan found nothing although the text read mentions the attribute name in any case,
+     * e.g. because of markup this tokenizer does not understand.
+     */
+    public boolean mayHaveMissedAttribute() {
+        return mentioned;
+    }
+
+    /**
+     * Reads the rest of the page and returns it together with the retained text, which starts at a
+     * top-level tag so Jsoup reads it in the same context as the whole page.
+     */
+    public String replay() throws IOException {
+        while (fill()) {
+            pos = limit;
+        }
+        return retained.toString();
+    }
+
+    private String readStartTag(char first) throws IOException {
+        token.setLength(0);
+        token.append(Character.toLowerCase(first));
+        int c;
+        while ((c = next()) != -1 && !isWhitespace(c) && c != '>' && c != '/') {
+            token.append((char) Character.toLowerCase(c));
+        }
+        String tagName = token.toString();
+        boolean div = "div".equals(tagName);
+        if (c != -1) {
+            unread();
+        }
+
+        while (true) {
+            c = skipWhitespace();
+            if (c == -1) {
+                throw new MalformedMarkupException("Page ends inside <" + tagName + ">");
+            }
+            if (c == '>') {
+                break;
+            }
+            if (c == '/') {
+                continue;
+            }
+            // Attribute name.
+            token.setLength(0);
+            token.append((char) c);
+            while ((c = next()) != -1 && !isWhitespace(c) && c != '=' && c != '>' && c != '/') {
+                token.append((char) c);
+            }
+            boolean wanted = div && ATTRIBUTE.contentEquals(lowerCase(token));
+            if (c != -1 && isWhitespace(c)) {
+                c = skipWhitespace();
+            }
+            if (c != '=') {
+                if (c != -1) {
+                    unread();
+                }
+                continue;
+            }
+            String value = readAttributeValue(wanted);
+            if (wanted) {
+                return value;
+            }
+        }
+
+        if (isRawText(tagName)) {
+            skipRawText(tagName);
+        }
+        return null;
+    }
+
+    private String readAttributeValue(boolean keep) throws IOException {
+        int c = skipWhitespace();
+        if (c == -1) {
+            throw new MalformedMarkupException("Page ends inside an attribute");
+        }
+        StringBuilder value = null;
+        if (keep) {
+            // The value is either returned or unterminated, in which case Jsoup drops the tag; no need
+            // to hold it twice.
+            value = new StringBuilder();
+            retaining = false;
+        }
+        if (c == '"' || c == '\'') {
+            int quote = c;
+            while ((c = next()) != quote) {
+                if (c == -1) {
+                    throw new MalformedMarkupException("Unterminated attribute value");
+                }
+                if (keep) {
+                    value.append((char) c);
+                }
+            }
+        } else {
+            do {
+                if (keep) {
+                    value.append((char) c);
+                }
+            } while ((c = next()) != -1 && !isWhitespace(c) && c != '>');
+            if (c != -1) {
+                unread();
+            }
+        }
+        return keep ? value.toString() : null;
+    }
+
+    private void skipDeclaration() throws IOException {
+        int c = next();
+        if (c == '-' && peek() == '-') {
+            next();
+            // Comment: skip to the closing "-->".
+            int dashes = 0;
+            while ((c = next()) != -1) {
+                if (c == '>' && dashes >= 2) {
+                    return;
+                }
+                dashes = c == '-' ? dashes + 1 : 0;
+            }
+            return;
+        }
+        if (c != -1 && c != '>') {
+            skipPast('>');
+        }
+    }
+
+    private void skipRawText(String tagName) throws IOException {
+        int c;
+        while ((c = next()) != -1) {
+            if (c != '<' || peek() != '/') {
+                continue;
+            }
+            next();
+            int matched = 0;
+            while (matched < tagName.length() && (c = next()) != -1
+                    && Character.toLowerCase(c) == tagName.charAt(matched)) {
+                matched++;
+            }
+            if (matched == tagName.length()) {
+                skipPast('>');
+                return;
+            }
+        }
+    }
+
+    private void skipPast(char end) throws IOException {
+        int c;
+        while ((c = next()) != -1 && c != end) {
+            // skip
+        }
+    }
+
+    private int skipWhitespace() throws IOException {
+        int c;
+        while ((c = next()) != -1 && isWhitespace(c)) {
+            // skip
+        }
+        return c;
+    }
+
+    private int next() throws IOException {
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+        return buffer[pos++];
+    }
+
+    private int peek() throws IOException {
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+        return buffer[pos];
+    }
+
+    private void unread() {
+        pos--;
+    }
+
+    private boolean fill() throws IOException {
+        // Keep the last character so a single unread() across a refill stays valid.
+        int keep = limit > 0 ? 1 : 0;
+        if (keep == 1) {
+            buffer[0] = buffer[limit - 1];
+        }
+        int read = reader.read(buffer, keep, buffer.length - keep);
+        if (read <= 0) {
+            pos = limit = keep;
+            return false;
+        }
+        if (!mentioned) {
+            // Nothing before the current construct can be needed by the fallback.
+            retained.delete(0, markupStart);
+            markupStart = 0;
+            findMention(keep, keep + read);
+        }
+        if (retaining) {
+            retained.append(buffer, keep, read);
+        }
+        pos = keep;
+        limit = keep + read;
+        return true;
+    }
+
+    private void findMention(int from, int to) {
+        for (int i = from; i < to && !mentioned; i++) {
+            char c = Character.toLowerCase(buffer[i]);
+            if (c == ATTRIBUTE.charAt(mentionMatched)) {
+                mentioned = ++mentionMatched == ATTRIBUTE.length();
+            } else {
+                mentionMatched = c == ATTRIBUTE.charAt(0) ? 1 : 0;
+            }
+        }
+    }
+
+    private static CharSequence lowerCase(StringBuilder sb) {
+        for (int i = 0; i < sb.length(); i++) {
+            sb.setCharAt(i, Character.toLowerCase(sb.charAt(i)));
+        }
+        return sb;
+    }
+
+    private static boolean isRawText(String tagName) {
+        return switch (tagName) {
+            case "script", "style", "textarea", "title" -> true;
+            default -> false;
+        };
+    }
+
+    private static boolean isLetter(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+    }
+
+    /**
+     * Thrown when the page cannot be tokenized reliably.
+     */
+    public static class MalformedMarkupException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        public MalformedMarkupException(String message) {
+            super(message);
+        }
+    }
+
+}
@@ -0,0 +1,124 @@
+package com.files.downloader.service;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * State and progress counters of one download run. Counters are updated concurrently by the download tasks.
+ */
+@Getter
+public class DownloadJob {
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    public static final String DEFAULT_NAME = "manual";
+
+    private final String id = UUID.randomUUID().toString();
+
+    /**
+     * Name the metrics of the job are tagged with; shared by runs of the same kind of job.
+     */
+    private final String name;
+
+    /**
+     * Page names appended to the resource url; empty for the resource page itself.
+     */
+    private final List<String> pageNames;
+
+    private final boolean followPagination;
+
+    /**
+     * Whether the job syncs its page incrementally against the stored date watermark.
+     */
+    private final boolean incremental;
+
+    private final LocalDateTime createdAt = LocalDateTime.now();
+
+    private volatile Status status = Status.QUEUED;
+
+    private volatile LocalDateTime startedAt;
+
+    private volatile LocalDateTime finishedAt;
+
+    private volatile String error;
+
+    private final AtomicLong pagesFetched = new AtomicLong();
+
+    private final AtomicLong pagesFailed = new AtomicLong();
+
+    private final AtomicLong itemsFound = new AtomicLong();
+
+    private final AtomicLong itemsSkipped = new AtomicLong();
+
+    private final AtomicLong itemsDownloaded = new AtomicLong();
+
+    private final AtomicLong itemsFailed = new AtomicLong();
+
+    private final AtomicLong bytes = new AtomicLong();
+
+    public DownloadJob(List<String> pageNames, boolean followPagination) {
+        this(DEFAULT_NAME, pageNames, followPagination, false);
+    }
+
+    public DownloadJob(String name, List<String> pageNames, boolean followPagination, boolean incremental) {
+        this.name = name;
+        this.pageNames = List.copyOf(pageNames);
+        this.followPagination = followPagination;
+        this.incremental = incremental;
+    }
+
+    void start() {
+        startedAt = LocalDateTime.now();
+        status = Status.RUNNING;
+    }
+
+    void complete() {
+        finishedAt = LocalDateTime.now();
+        status = Status.COMPLETED;
+    }
+
+    void fail(String error) {
+        this.error = error;
+        finishedAt = LocalDateTime.now();
+        status = Status.FAILED;
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+
+    void pageFetched() {
+        pagesFetched.incrementAndGet();
+    }
+
+    void pageFailed() {
+        pagesFailed.incrementAndGet();
+    }
+
+    void found(long items) {
+        itemsFound.addAndGet(items);
+    }
+
+    void skipped(long items) {
+        itemsSkipped.addAndGet(items);
+    }
+
+    void downloaded(long fileBytes) {
+        itemsDownloaded.incrementAndGet();
+        bytes.addAndGet(fileBytes);
+    }
+
+    void failed() {
+        itemsFailed.incrementAndGet();
+    }
+
+}
@@ -0,0 +1,142 @@
+package com.files.downloader.service;
+
+import com.files.downloader.config.DownloadProperties;
+import com.files.downloader.dto.PageRequestDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs download jobs on the bounded job executor and keeps their state for
+ * {@code download.jobs.retention} after they finish.
+ */
+@Service
+@Slf4j
+public class DownloadJobService {
+
+    private static final String PAGE_PLACEHOLDER = "{n}";
+
+    private final FileDownloadService fileDownloadService;
+
+    private final ExecutorService downloadJobExecutor;
+
+    private final Duration retention;
+
+    private final int maxPages;
+
+    private final Map<String, DownloadJob> jobs = new ConcurrentHashMap<>();
+
+    public DownloadJobService(FileDownloadService fileDownloadService,
+                              @Qualifier("downloadJobExecutor") ExecutorService downloadJobExecutor,
+                              DownloadProperties downloadProperties) {
+        this.fileDownloadService = fileDownloadService;
+        this.downloadJobExecutor = downloadJobExecutor;
+        this.retention = downloadProperties.getJobs().getRetention();
+        this.maxPages = downloadProperties.getCrawl().getMaxPages();
+    }
+
+    /**
+     * Queues a download run for the pages named by the request: its page name, its page names and the
+     * expansion of its page pattern, in that order. A null request, or one naming no page, crawls the
+     * resource page.
+     *
+     * @throws IllegalArgumentException   if the page pattern or its range is invalid
+     * @throws RejectedExecutionException if the job queue is full
+     */
+    public DownloadJob submit(PageRequestDTO pageRequest) {
+        if (pageRequest == null) {
+            return submit(new DownloadJob(List.of(), false));
+        }
+        String name = StringUtils.isNotBlank(pageRequest.getJobName())
+                ? pageRequest.getJobName()
+                : DownloadJob.DEFAULT_NAME;
+        return submit(new DownloadJob(name, pageNames(pageRequest), pageRequest.isFollowPagination(), false));
+    }
+
+    /**
+     * Queues the given job.
+     *
+     * @throws RejectedExecutionException if the job queue is full
+     */
+    public DownloadJob submit(DownloadJob job) {
+        jobs.put(job.getId(), job);
+        try {
+            downloadJobExecutor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw e;
+        }
+        log.info("Queued download job {} for pages {}", job.getId(), job.getPageNames());
+        return job;
+    }
+
+    private List<String> pageNames(PageRequestDTO pageRequest) {
+        Set<String> pageNames = new LinkedHashSet<>();
+        if (StringUtils.isNotBlank(pageRequest.getPageName())) {
+            pageNames.add(pageRequest.getPageName());
+        }
+        if (pageRequest.getPageNames() != null) {
+            pageRequest.getPageNames().stream().filter(StringUtils::isNotBlank).forEach(pageNames::add);
+        }
+        String pattern = pageRequest.getPagePattern();
+        if (pattern != null) {
+            Integer first = pageRequest.getFirstPage();
+            Integer last = pageRequest.getLastPage();
+            if (!pattern.contains(PAGE_PLACEHOLDER) || first == null || last == null || last < first) {
+                throw new IllegalArgumentException(
+                        "pagePattern needs a " + PAGE_PLACEHOLDER + " placeholder and firstPage <= lastPage");
+            }
+            if ((long) last - first >= maxPages) {
+                throw new IllegalArgumentException("pagePattern expands to more than " + maxPages + " pages");
+            }
+            for (int n = first; n <= last; n++) {
+                pageNames.add(pattern.replace(PAGE_PLACEHOLDER, Integer.toString(n)));
+            }
+        }
+        return new ArrayList<>(pageNames);
+    }
+
+    public Optional<DownloadJob> find(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    private void run(DownloadJob job) {
+        job.start();
+        try {
+            fileDownloadService.fetchAndDownloadFiles(job);
+            if (!job.isFinished()) {
+                job.complete();
+            }
+        } catch (RuntimeException e) {
+            log.error("Download job {} failed", job.getId(), e);
+            job.fail(e.getMessage());
+        }
+        log.info("Download job {} {}: {} found, {} skipped, {} downloaded ({} bytes), {} failed",
+                job.getId(), job.getStatus(), job.getItemsFound(), job.getItemsSkipped(),
+                job.getItemsDownloaded(), job.getBytes(), job.getItemsFailed());
+    }
+
+    /**
+     * Forgets finished jobs older than the retention period.
+     */
+    @Scheduled(fixedDelayString = "PT10M")
+    public void evictFinished() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(cutoff));
+    }
+
+}
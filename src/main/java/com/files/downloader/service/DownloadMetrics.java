@@ -0,0 +1,173 @@
+package com.files.downloader.service;
+
+import com.files.downloader.config.DownloadProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer meters of the scrape and download pipeline. Meters of a job are tagged with the job name
+ * rather than its id, and only with the names of the built-in jobs, the scheduled syncs and
+ * {@code download.jobs.metric-names}; any other name is tagged {@value #OTHER_JOB}.
+ */
+@Component
+public class DownloadMetrics {
+
+    public static final String LISTING = "listing";
+
+    public static final String DETAIL = "detail";
+
+    static final String OTHER_JOB = "other";
+
+    private final MeterRegistry registry;
+
+    private final Set<String> jobNames = new HashSet<>();
+
+    public DownloadMetrics(MeterRegistry registry, DownloadProperties downloadProperties) {
+        this.registry = registry;
+        jobNames.add(DownloadJob.DEFAULT_NAME);
+        jobNames.add(DownloadRetryWorker.JOB_NAME);
+        for (DownloadProperties.SyncPage syncPage : downloadProperties.getSync().getPages()) {
+            jobNames.add(ScheduledSyncService.JOB_NAME_PREFIX + syncPage.getPage());
+        }
+        jobNames.addAll(downloadProperties.getJobs().getMetricNames());
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(registry);
+    }
+
+    public void login(Timer.Sample sample, boolean success) {
+        sample.stop(Timer.builder("portal.login")
+                .description("Portal login latency")
+                .tag("outcome", outcome(success))
+                .register(registry));
+    }
+
+    /**
+     * Records a page request, from sending it to the end of data-content extraction, and the body bytes read,
+     * decoded and as transferred.
+     */
+    public void pageFetched(DownloadJob job, String kind, Timer.Sample sample, boolean success, long bytes,
+                            long transferredBytes) {
+        sample.stop(Timer.builder("portal.page.fetch")
+                .description("Portal page request and data-content extraction time")
+                .tags("job", jobTag(job), "kind", kind, "outcome", outcome(success))
+                .register(registry));
+        if (success) {
+            DistributionSummary.builder("portal.page.size")
+                    .description("Decoded bytes read from a portal page")
+                    .baseUnit("bytes")
+                    .tags("job", jobTag(job), "kind", kind)
+                    .register(registry)
+                    .record(bytes);
+            DistributionSummary.builder("portal.page.transferred")
+                    .description("Bytes received for a portal page, before decompression")
+                    .baseUnit("bytes")
+                    .tags("job", jobTag(job), "kind", kind)
+                    .register(registry)
+                    .record(transferredBytes);
+        }
+    }
+
+    /**
+     * Records the time taken to extract url nodes from a page's data-content JSON and how many were found.
+     */
+    public void parsed(DownloadJob job, String kind, long nanos, int nodes) {
+        Timer.builder("page.parse")
+                .description("Url node extraction time")
+                .tags("job", jobTag(job), "kind", kind)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("page.nodes")
+                .description("Url nodes extracted from a page")
+                .tags("job", jobTag(job), "kind", kind)
+                .register(registry)
+                .record(nodes);
+    }
+
+    /**
+     * Records the resolution of an item's download link from its detail page.
+     */
+    public void resolved(DownloadJob job, Timer.Sample sample, boolean success) {
+        sample.stop(Timer.builder("item.resolve")
+                .description("Detail page resolution time")
+                .tags("job", jobTag(job), "outcome", outcome(success))
+                .register(registry));
+    }
+
+    public void skipped(DownloadJob job, long items) {
+        items(job, "skipped").increment(items);
+    }
+
+    public void failed(DownloadJob job) {
+        items(job, "failed").increment();
+    }
+
+    /**
+     * Records a completed file transfer; rate() over the counters gives items and bytes per second.
+     */
+    public void downloaded(DownloadJob job, long bytes, long elapsedNanos, boolean deduplicated) {
+        items(job, deduplicated ? "deduplicated" : "downloaded").increment();
+        Counter.builder("download.bytes")
+                .description("Bytes transferred by file downloads")
+                .baseUnit("bytes")
+                .tag("job", jobTag(job))
+                .register(registry)
+                .increment(bytes);
+        Timer.builder("download.transfer")
+                .description("File transfer time")
+                .tag("job", jobTag(job))
+                .register(registry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Counts failures recorded in the retry queue, by whether another attempt was scheduled or the
+     * download was dead-lettered.
+     */
+    public void retryQueued(String outcome) {
+        Counter.builder("download.retry.queued")
+                .description("Failed downloads recorded in the retry queue")
+                .tag("outcome", outcome)
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Records one write of buffered download records.
+     */
+    public void saved(Timer.Sample sample, int records, boolean success) {
+        sample.stop(Timer.builder("db.save")
+                .description("Downloaded file record batch write time")
+                .tag("outcome", outcome(success))
+                .register(registry));
+        Counter.builder("db.save.records")
+                .description("Downloaded file records written")
+                .tag("outcome", outcome(success))
+                .register(registry)
+                .increment(records);
+    }
+
+    private Counter items(DownloadJob job, String outcome) {
+        return Counter.builder("download.items")
+                .description("Items processed by download jobs")
+                .tags("job", jobTag(job), "outcome", outcome)
+                .register(registry);
+    }
+
+    private String jobTag(DownloadJob job) {
+        return jobNames.contains(job.getName()) ? job.getName() : OTHER_JOB;
+    }
+
+    private static String outcome(boolean success) {
+        return success ? "success" : "failure";
+    }
+
+}
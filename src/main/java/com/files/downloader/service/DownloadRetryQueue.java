@@ -0,0 +1,102 @@
+package com.files.downloader.service;
+
+import com.files.downloader.config.DownloadProperties;
+import com.files.downloader.model.FailedDownload;
+import com.files.downloader.repository.FailedDownloadRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Durable queue of resolved downloads that failed. Each failure schedules the next attempt with
+ * exponential backoff and jitter; after {@code download.retry.max-attempts} the download is dead-lettered.
+ */
+@Service
+@Slf4j
+public class DownloadRetryQueue {
+
+    private final FailedDownloadRepository failedDownloadRepository;
+
+    private final DownloadProperties.Retry retry;
+
+    private final DownloadMetrics downloadMetrics;
+
+    public DownloadRetryQueue(FailedDownloadRepository failedDownloadRepository,
+                              DownloadProperties downloadProperties,
+                              DownloadMetrics downloadMetrics) {
+        this.failedDownloadRepository = failedDownloadRepository;
+        this.retry = downloadProperties.getRetry();
+        this.downloadMetrics = downloadMetrics;
+    }
+
+    /**
+     * Records a failed attempt of a download and schedules the next one, or dead-letters the download.
+     *
+     * @param fileName the target file name, relative to {@code download.dir}
+     */
+    @Transactional
+    public void failed(String downloadId, String fileUrl, String fileName, String sourceId, String error) {
+        if (!retry.isEnabled()) {
+            return;
+        }
+        FailedDownload failedDownload = failedDownloadRepository.findByFileUrl(fileUrl)
+                .orElseGet(() -> new FailedDownload(downloadId, fileUrl, fileName, sourceId));
+        LocalDateTime now = LocalDateTime.now();
+        if (failedDownload.getId() == null) {
+            failedDownload.setCreatedAt(now);
+        }
+        int attempts = failedDownload.getAttempts() + 1;
+        failedDownload.setAttempts(attempts);
+        failedDownload.setLastError(StringUtils.abbreviate(error, 1024));
+        failedDownload.setUpdatedAt(now);
+        if (attempts >= retry.getMaxAttempts()) {
+            failedDownload.setStatus(FailedDownload.Status.DEAD);
+            failedDownload.setNextAttemptAt(now);
+            downloadMetrics.retryQueued("dead_lettered");
+            log.warn("Giving up on {} after {} attempts: {}", fileUrl, attempts, error);
+        } else {
+            failedDownload.setStatus(FailedDownload.Status.PENDING);
+            failedDownload.setNextAttemptAt(now.plus(backoff(attempts)));
+            downloadMetrics.retryQueued("scheduled");
+            log.info("Download {} failed ({} attempts), next attempt at {}", fileUrl, attempts,
+                    failedDownload.getNextAttemptAt());
+        }
+        failedDownloadRepository.save(failedDownload);
+    }
+
+    /**
+     * Returns the pending downloads whose next attempt is due, earliest first.
+     */
+    @Transactional(readOnly = true)
+    public List<FailedDownload> due(int limit) {
+        return failedDownloadRepository.findDue(LocalDateTime.now(), PageRequest.of(0, limit));
+    }
+
+    /**
+     * Removes a download that no longer needs to be retried.
+     */
+    @Transactional
+    public void remove(FailedDownload failedDownload) {
+        failedDownloadRepository.deleteById(failedDownload.getId());
+    }
+
+    /**
+     * Delay after the given number of attempts: initial * multiplier^(attempts - 1), capped at the maximum,
+     * with the jitter share of it randomized.
+     */
+    Duration backoff(int attempts) {
+        double delay = retry.getInitialBackoff().toMillis() * Math.pow(retry.getMultiplier(), attempts - 1);
+        delay = Math.min(delay, retry.getMaxBackoff().toMillis());
+        double jitter = Math.min(1, Math.max(0, retry.getJitter()));
+        delay *= 1 - jitter * ThreadLocalRandom.current().nextDouble();
+        return Duration.ofMillis((long) delay);
+    }
+
+}
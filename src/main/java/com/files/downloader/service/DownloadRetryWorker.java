@@ -0,0 +1,104 @@
+package com.files.downloader.service;
+
+import com.files.downloader.config.DownloadProperties;
+import com.files.downloader.model.FailedDownload;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Retries the due downloads of the {@link DownloadRetryQueue} without scraping or resolving their items
+ * again. A download that succeeded in the meantime is dropped from the queue.
+ */
+@Component
+@Slf4j
+public class DownloadRetryWorker {
+
+    /**
+     * Job name the meters of retried downloads are tagged with.
+     */
+    public static final String JOB_NAME = "retry";
+
+    private final DownloadRetryQueue downloadRetryQueue;
+
+    private final FileDownloadService fileDownloadService;
+
+    private final KnownDownloadIndex knownDownloadIndex;
+
+    private final ExecutorService downloadExecutor;
+
+    private final DownloadProperties.Retry retry;
+
+    /**
+     * Download links of the retries in progress.
+     */
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    public DownloadRetryWorker(DownloadRetryQueue downloadRetryQueue,
+                               FileDownloadService fileDownloadService,
+                               KnownDownloadIndex knownDownloadIndex,
+                               @Qualifier("downloadExecutor") ExecutorService downloadExecutor,
+                               DownloadProperties downloadProperties) {
+        this.downloadRetryQueue = downloadRetryQueue;
+        this.fileDownloadService = fileDownloadService;
+        this.knownDownloadIndex = knownDownloadIndex;
+        this.downloadExecutor = downloadExecutor;
+        this.retry = downloadProperties.getRetry();
+    }
+
+    /**
+     * Hands the due downloads to the download executor and returns without waiting for them, so a slow
+     * batch does not hold up the other scheduled tasks. A download still in flight from an earlier poll
+     * is not started again.
+     */
+    @Scheduled(fixedDelayString = "${download.retry.poll-interval:30s}",
+            initialDelayString = "${download.retry.poll-interval:30s}")
+    public void retryDue() {
+        if (!retry.isEnabled()) {
+            return;
+        }
+        List<FailedDownload> due = downloadRetryQueue.due(Math.max(1, retry.getBatchSize()));
+        if (due.isEmpty()) {
+            return;
+        }
+        DownloadJob job = new DownloadJob(JOB_NAME, List.of(), false, false);
+        List<CompletableFuture<Void>> tasks = new ArrayList<>(due.size());
+        for (FailedDownload failedDownload : due) {
+            if (knownDownloadIndex.isKnownFile(failedDownload.getFileUrl())) {
+                downloadRetryQueue.remove(failedDownload);
+                continue;
+            }
+            if (!inFlight.add(failedDownload.getFileUrl())) {
+                continue;
+            }
+            tasks.add(CompletableFuture.runAsync(() -> {
+                try {
+                    if (fileDownloadService.retryDownload(failedDownload, job)) {
+                        downloadRetryQueue.remove(failedDownload);
+                    }
+                } finally {
+                    inFlight.remove(failedDownload.getFileUrl());
+                }
+            }, downloadExecutor).exceptionally(e -> {
+                log.error("Error retrying download {}: {}", failedDownload.getFileUrl(), e.getMessage());
+                return null;
+            }));
+        }
+        if (tasks.isEmpty()) {
+            return;
+        }
+        log.info("Retrying {} failed downloads", tasks.size());
+        CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).thenRun(() ->
+                log.info("Retried {} failed downloads: {} downloaded, {} failed again", tasks.size(),
+                        job.getItemsDownloaded().get(), job.getItemsFailed().get()));
+    }
+
+}
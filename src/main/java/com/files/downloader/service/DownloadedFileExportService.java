@@ -0,0 +1,194 @@
+package com.files.downloader.service;
+
+import com.files.downloader.config.DownloadProperties;
+import com.files.downloader.dto.DownloadResponseDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes downloaded files as a ZIP archive straight to an output stream. Records are read in keyset pages
+ * and every file is copied from its channel through one reusable buffer, so memory use does not grow with
+ * the size of the export; only the central directory grows, by one entry per file.
+ * <p>
+ * Files in an already-compressed format are added as STORED entries. The ZIP format needs their CRC ahead
+ * of their data, so they are read twice, the second time usually from the page cache.
+ */
+@Service
+@Slf4j
+public class DownloadedFileExportService {
+
+    private static final int PAGE_SIZE = 500;
+
+    private static final Set<String> COMPRESSED_EXTENSIONS = Set.of(
+            "zip", "gz", "tgz", "bz2", "xz", "7z", "rar", "zst", "jar", "apk", "epub",
+            "docx", "xlsx", "pptx", "odt", "ods", "odp",
+            "jpg", "jpeg", "png", "gif", "webp", "heic", "avif",
+            "mp3", "m4a", "aac", "ogg", "opus", "flac", "mp4", "m4v", "mkv", "mov", "avi", "webm");
+
+    private final DownloadedFileQueryService downloadedFileQueryService;
+
+    private final DownloadProperties downloadProperties;
+
+    public DownloadedFileExportService(DownloadedFileQueryService downloadedFileQueryService,
+                                       DownloadProperties downloadProperties) {
+        this.downloadedFileQueryService = downloadedFileQueryService;
+        this.downloadProperties = downloadProperties;
+    }
+
+    /**
+     * Writes every file downloaded in [from, to), oldest first.
+     *
+     * @return the number of files written
+     */
+    public int export(LocalDateTime from, LocalDateTime to, OutputStream out) throws IOException {
+        Archive archive = new Archive(out);
+        String cursor = null;
+        List<DownloadResponseDTO> page;
+        do {
+            page = downloadedFileQueryService.page(from, to, cursor, PAGE_SIZE);
+            for (DownloadResponseDTO file : page) {
+                archive.add(file);
+            }
+            if (!page.isEmpty()) {
+                cursor = downloadedFileQueryService.cursorAfter(page.getLast());
+            }
+        } while (page.size() == PAGE_SIZE);
+        return archive.finish();
+    }
+
+    /**
+     * Writes the given files, in order.
+     *
+     * @return the number of files written
+     */
+    public int export(List<DownloadResponseDTO> files, OutputStream out) throws IOException {
+        Archive archive = new Archive(out);
+        for (DownloadResponseDTO file : files) {
+            archive.add(file);
+        }
+        return archive.finish();
+    }
+
+    private static boolean isCompressed(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot >= 0 && COMPRESSED_EXTENSIONS.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    private final class Archive {
+
+        private final ZipOutputStream zip;
+
+        private final Path root = Path.of(downloadProperties.getDir()).toAbsolutePath().normalize();
+
+        private final ByteBuffer buffer = ByteBuffer.allocate(downloadProperties.getBufferSize());
+
+        private final Set<String> names = new HashSet<>();
+
+        private int written;
+
+        private int missing;
+
+        private Archive(OutputStream out) {
+            this.zip = new ZipOutputStream(out);
+        }
+
+        private void add(DownloadResponseDTO file) throws IOException {
+            Path path = Path.of(file.getLocalPath()).toAbsolutePath().normalize();
+            if (!Files.isRegularFile(path)) {
+                // The response is already under way, so a file removed from disk is left out.
+                log.warn("Skipping downloaded file {} missing from disk: {}", file.getId(), path);
+                missing++;
+                return;
+            }
+            String name = entryName(file, path);
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long size = channel.size();
+                ZipEntry entry = new ZipEntry(name);
+                entry.setLastModifiedTime(Files.getLastModifiedTime(path));
+                if (isCompressed(name)) {
+                    entry.setMethod(ZipEntry.STORED);
+                    entry.setSize(size);
+                    entry.setCompressedSize(size);
+                    entry.setCrc(crc(channel, size));
+                }
+                zip.putNextEntry(entry);
+                copy(channel, size);
+                zip.closeEntry();
+            }
+            written++;
+        }
+
+        private int finish() throws IOException {
+            // Leave the response stream open for the servlet container.
+            zip.finish();
+            zip.flush();
+            log.info("Exported {} downloaded files, {} missing from disk", written, missing);
+            return written;
+        }
+
+        /**
+         * The path of the file relative to {@code download.dir}, or its file name if it lies elsewhere;
+         * prefixed with the record id if another entry already has that name.
+         */
+        private String entryName(DownloadResponseDTO file, Path path) {
+            String name = path.startsWith(root)
+                    ? root.relativize(path).toString().replace('\\', '/')
+                    : path.getFileName().toString();
+            if (!names.add(name)) {
+                name = file.getId() + "-" + name;
+                names.add(name);
+            }
+            return name;
+        }
+
+        private long crc(FileChannel channel, long size) throws IOException {
+            CRC32 crc = new CRC32();
+            long position = 0;
+            while (position < size) {
+                int read = read(channel, position, size);
+                crc.update(buffer.array(), 0, read);
+                position += read;
+            }
+            return crc.getValue();
+        }
+
+        private void copy(FileChannel channel, long size) throws IOException {
+            long position = 0;
+            while (position < size) {
+                int read = read(channel, position, size);
+                zip.write(buffer.array(), 0, read);
+                position += read;
+            }
+        }
+
+        /**
+         * Reads the next chunk at the given position, up to the size the entry was started with.
+         */
+        private int read(FileChannel channel, long position, long size) throws IOException {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), size - position));
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("File shrank while being exported at " + position + " of " + size + " bytes");
+            }
+            return read;
+        }
+    }
+
+}
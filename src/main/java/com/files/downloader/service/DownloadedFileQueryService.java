@@ -0,0 +1,118 @@
+package com.files.downloader.service;
+
+import com.files.downloader.dto.DownloadResponseDTO;
+import com.files.downloader.model.DownloadedFile;
+import com.files.downloader.repository.DownloadedFileRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Reads downloaded file records page by page with an opaque (downloadedAt, id) cursor, or as one stream,
+ * without loading the table into memory.
+ */
+@Service
+public class DownloadedFileQueryService {
+
+    /**
+     * Bounds of an open date range; inside what a PostgreSQL timestamp can hold.
+     */
+    private static final LocalDateTime MIN_DATE = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private static final LocalDateTime MAX_DATE = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    private final DownloadedFileRepository downloadedFileRepository;
+
+    public DownloadedFileQueryService(DownloadedFileRepository downloadedFileRepository) {
+        this.downloadedFileRepository = downloadedFileRepository;
+    }
+
+    /**
+     * Returns up to {@code limit} records downloaded in [from, to) that follow the cursor.
+     *
+     * @param from   inclusive lower bound, or null
+     * @param to     exclusive upper bound, or null
+     * @param cursor the cursor of the last record of the previous page, or null for the first page
+     */
+    @Transactional(readOnly = true)
+    public List<DownloadResponseDTO> page(LocalDateTime from, LocalDateTime to, String cursor, int limit) {
+        LocalDateTime lower = from != null ? from : MIN_DATE;
+        LocalDateTime afterDownloadedAt = lower;
+        long afterId = 0;
+        if (cursor != null) {
+            Position position = decode(cursor);
+            afterDownloadedAt = position.downloadedAt();
+            afterId = position.id();
+        }
+        return downloadedFileRepository.findPageAfter(
+                lower, to != null ? to : MAX_DATE, afterDownloadedAt, afterId, PageRequest.ofSize(limit));
+    }
+
+    /**
+     * Returns the record with the given id.
+     */
+    @Transactional(readOnly = true)
+    public Optional<DownloadedFile> find(long id) {
+        return downloadedFileRepository.findById(id);
+    }
+
+    /**
+     * Returns the records with the given ids, in the order of the ids; unknown ids are left out.
+     */
+    @Transactional(readOnly = true)
+    public List<DownloadResponseDTO> byIds(List<Long> ids) {
+        Map<Long, DownloadResponseDTO> byId = new HashMap<>();
+        for (DownloadResponseDTO file : downloadedFileRepository.findAllByIdIn(ids)) {
+            byId.put(file.getId(), file);
+        }
+        return ids.stream().distinct().map(byId::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Passes every record downloaded in [from, to) to the consumer, in (downloadedAt, id) order.
+     */
+    @Transactional(readOnly = true)
+    public void forEach(LocalDateTime from, LocalDateTime to, Consumer<DownloadResponseDTO> consumer) {
+        try (Stream<DownloadResponseDTO> files = downloadedFileRepository.streamBetween(
+                from != null ? from : MIN_DATE, to != null ? to : MAX_DATE)) {
+            files.forEach(consumer);
+        }
+    }
+
+    /**
+     * The cursor that continues after the given record.
+     */
+    public String cursorAfter(DownloadResponseDTO file) {
+        String position = file.getDownloadedAt() + "_" + file.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the cursor was not produced by {@link #cursorAfter}
+     */
+    private static Position decode(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = position.lastIndexOf('_');
+            return new Position(LocalDateTime.parse(position.substring(0, separator)),
+                    Long.parseLong(position.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+
+    private record Position(LocalDateTime downloadedAt, long id) {
+    }
+
+}
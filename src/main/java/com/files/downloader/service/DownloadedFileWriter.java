@@ -0,0 +1,181 @@
+package com.files.downloader.service;
+
+import com.files.downloader.config.DownloadProperties;
+import com.files.downloader.model.DownloadedFile;
+import com.files.downloader.repository.DownloadedFileRepository;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind buffer for {@link DownloadedFile} records. Records are written in JDBC batches once
+ * {@code download.persistence.batch-size} of them are pending or {@code download.persistence.flush-interval}
+ * has passed, each batch in its own short transaction. A record that cannot be written is dropped from
+ * {@link KnownDownloadIndex} again and counted as lost, so callers can tell whether their records were saved.
+ * <p>
+ * {@code downloadedAt} is set when a batch is written, under the flush lock, so records are committed in
+ * (downloadedAt, id) order and a reader paging with that cursor never skips a record written later. It
+ * lags the end of the download by up to the flush interval.
+ */
+@Component
+@Slf4j
+public class DownloadedFileWriter {
+
+    private final DownloadedFileRepository downloadedFileRepository;
+
+    private final KnownDownloadIndex knownDownloadIndex;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final DownloadMetrics downloadMetrics;
+
+    private final int batchSize;
+
+    private final ConcurrentLinkedQueue<DownloadedFile> pending = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    private final AtomicLong lostRecords = new AtomicLong();
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    /**
+     * downloadedAt of the last written batch, guarded by the flush lock; the clock may step back.
+     */
+    private LocalDateTime lastWrittenAt = LocalDateTime.MIN;
+
+    public DownloadedFileWriter(DownloadedFileRepository downloadedFileRepository,
+                                KnownDownloadIndex knownDownloadIndex,
+                                TransactionTemplate transactionTemplate,
+                                DownloadProperties downloadProperties,
+                                DownloadMetrics downloadMetrics) {
+        this.downloadMetrics = downloadMetrics;
+        this.downloadedFileRepository = downloadedFileRepository;
+        this.knownDownloadIndex = knownDownloadIndex;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = Math.max(1, downloadProperties.getPersistence().getBatchSize());
+    }
+
+    /**
+     * Buffers a record for writing. It is visible to {@link KnownDownloadIndex} immediately, so the same
+     * file is not downloaded twice before the next flush, and removed from it if it cannot be written.
+     */
+    public void submit(DownloadedFile downloadedFile) {
+        knownDownloadIndex.record(downloadedFile);
+        pending.add(downloadedFile);
+        if (pendingCount.incrementAndGet() >= batchSize && flushLock.tryLock()) {
+            // A flush already in progress drains this record too.
+            try {
+                flush();
+            } finally {
+                flushLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Writes every buffered record.
+     */
+    @Scheduled(fixedDelayString = "${download.persistence.flush-interval:5s}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            List<DownloadedFile> batch;
+            while (!(batch = drain()).isEmpty()) {
+                write(batch);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Writes every buffered record and reports whether every record submitted since the mark was saved.
+     *
+     * @param mark the value of {@link #mark()} taken before the records were submitted
+     * @return false if a record was lost since the mark, possibly one of another caller
+     */
+    public boolean flushSince(long mark) {
+        flush();
+        return lostRecords.get() == mark;
+    }
+
+    /**
+     * Returns the number of records lost so far, to be passed to {@link #flushSince(long)}.
+     */
+    public long mark() {
+        return lostRecords.get();
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+    }
+
+    private List<DownloadedFile> drain() {
+        List<DownloadedFile> batch = new ArrayList<>(batchSize);
+        DownloadedFile downloadedFile;
+        while (batch.size() < batchSize && (downloadedFile = pending.poll()) != null) {
+            pendingCount.decrementAndGet();
+            batch.add(downloadedFile);
+        }
+        return batch;
+    }
+
+    private void write(List<DownloadedFile> batch) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime writtenAt = now.isBefore(lastWrittenAt) ? lastWrittenAt : now;
+        lastWrittenAt = writtenAt;
+        batch.forEach(downloadedFile -> downloadedFile.setDownloadedAt(writtenAt));
+        Timer.Sample sample = downloadMetrics.start();
+        try {
+            transactionTemplate.executeWithoutResult(status -> downloadedFileRepository.saveAll(batch));
+            downloadMetrics.saved(sample, batch.size(), true);
+            log.debug("Saved {} downloaded file records", batch.size());
+        } catch (RuntimeException e) {
+            downloadMetrics.saved(sample, batch.size(), false);
+            // Isolate the offending record(s) so one bad row does not drop the whole batch.
+            log.warn("Batch insert of {} records failed, retrying one by one: {}", batch.size(), e.getMessage());
+            for (DownloadedFile downloadedFile : batch) {
+                Timer.Sample recordSample = downloadMetrics.start();
+                try {
+                    downloadedFile.setId(null);
+                    transactionTemplate.executeWithoutResult(status -> downloadedFileRepository.save(downloadedFile));
+                    downloadMetrics.saved(recordSample, 1, true);
+                } catch (RuntimeException single) {
+                    downloadMetrics.saved(recordSample, 1, false);
+                    log.error("Error saving downloaded file record {}: {}",
+                            downloadedFile.getFileUrl(), single.getMessage());
+                    lost(downloadedFile);
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops a record that could not be written from the index, unless the file is recorded already.
+     */
+    private void lost(DownloadedFile downloadedFile) {
+        try {
+            if (downloadedFileRepository.existsByFileUrl(downloadedFile.getFileUrl())) {
+                return;
+            }
+        } catch (RuntimeException e) {
+            log.debug("Could not check for an existing record of {}: {}", downloadedFile.getFileUrl(), e.getMessage());
+        }
+        lostRecords.incrementAndGet();
+        knownDownloadIndex.forget(downloadedFile);
+    }
+
+}
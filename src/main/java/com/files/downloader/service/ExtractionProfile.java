@@ -0,0 +1,180 @@
+package com.files.downloader.service;
+
+import com.files.downloader.config.CustomProperties;
+import lombok.Getter;
+import org.apache.commons.lang3.StringUtils;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * The field names, patterns and date format used to read one portal page layout, validated and compiled
+ * once from {@link CustomProperties} so that extraction does no per-item setup. Immutable, and shared by
+ * every thread reading pages of that layout.
+ */
+@Getter
+public final class ExtractionProfile {
+
+    /**
+     * Name of the profile built from the top-level {@code custom.*} properties.
+     */
+    public static final String DEFAULT = "default";
+
+    private static final String DATE_PATTERN = "yyyy-MM-dd";
+
+    private final String name;
+
+    /**
+     * Matched against page urls; null for the default profile, which reads every other page.
+     */
+    private final Pattern pagePattern;
+
+    /**
+     * Marker contained in the url of every listing item.
+     */
+    private final String ext;
+
+    private final String urlField;
+
+    private final String rateField;
+
+    private final String idField;
+
+    private final String nextPageField;
+
+    private final String itemIdField;
+
+    private final String dateField;
+
+    private final String downloadFormat;
+
+    private final ZoneId zone;
+
+    private final DateTimeFormatter dateFormatter;
+
+    /**
+     * The ext marker followed by the item number at the end of a url slug.
+     */
+    private final Pattern slugSuffix;
+
+    private ExtractionProfile(String name, String pagePattern, String ext, String urlField, String rateField,
+                              String idField, String nextPageField, String itemIdField, String dateField,
+                              String downloadFormat, ZoneId zone) {
+        this.name = name;
+        this.pagePattern = pagePattern == null ? null : compile(name, pagePattern);
+        this.ext = require(name, "ext", ext);
+        this.urlField = require(name, "url", urlField);
+        this.rateField = require(name, "rate", rateField);
+        this.idField = require(name, "id", idField);
+        this.nextPageField = StringUtils.isBlank(nextPageField) ? null : nextPageField;
+        this.itemIdField = require(name, "item-id", itemIdField);
+        this.dateField = require(name, "date", dateField);
+        this.downloadFormat = require(name, "download", downloadFormat);
+        if (!downloadFormat.contains("%s")) {
+            throw invalid(name, "download must contain %s for the download id");
+        }
+        this.zone = zone != null ? zone : ZoneId.systemDefault();
+        this.dateFormatter = DateTimeFormatter.ofPattern(DATE_PATTERN).withZone(this.zone);
+        this.slugSuffix = Pattern.compile(Pattern.quote(ext) + "\\d+$");
+    }
+
+    /**
+     * Compiles the default profile from the top-level {@code custom.*} properties.
+     *
+     * @throws IllegalStateException if a required property is missing or invalid
+     */
+    public static ExtractionProfile of(CustomProperties properties) {
+        return new ExtractionProfile(DEFAULT, null, properties.getExt(), properties.getUrl(), properties.getRate(),
+                properties.getId(), properties.getNextPage(), properties.getItemId(), properties.getDate(),
+                properties.getDownload(), properties.getZone());
+    }
+
+    /**
+     * Compiles a named profile; every property it leaves unset is taken from the top-level ones.
+     *
+     * @throws IllegalStateException if its page pattern or a required property is missing or invalid
+     */
+    public static ExtractionProfile of(String name, CustomProperties.Profile profile, CustomProperties defaults) {
+        if (StringUtils.isBlank(profile.getPagePattern())) {
+            throw invalid(name, "page-pattern is not set");
+        }
+        return new ExtractionProfile(name, profile.getPagePattern(),
+                orElse(profile.getExt(), defaults.getExt()),
+                orElse(profile.getUrl(), defaults.getUrl()),
+                orElse(profile.getRate(), defaults.getRate()),
+                orElse(profile.getId(), defaults.getId()),
+                orElse(profile.getNextPage(), defaults.getNextPage()),
+                orElse(profile.getItemId(), defaults.getItemId()),
+                orElse(profile.getDate(), defaults.getDate()),
+                orElse(profile.getDownload(), defaults.getDownload()),
+                profile.getZone() != null ? profile.getZone() : defaults.getZone());
+    }
+
+    /**
+     * Whether pages at the given url are read with this profile. The default profile matches none;
+     * it is used when no other profile does.
+     */
+    public boolean matchesPage(String pageUrl) {
+        return pagePattern != null && pageUrl != null && pagePattern.matcher(pageUrl).find();
+    }
+
+    /**
+     * Whether the url links to a listing item.
+     */
+    public boolean isItemUrl(String url) {
+        return url.contains(ext);
+    }
+
+    /**
+     * Removes the ext marker and item number from the end of a url slug.
+     */
+    public String stripSlugSuffix(String slug) {
+        return slugSuffix.matcher(slug).replaceFirst("");
+    }
+
+    /**
+     * Formats an item date as yyyy-MM-dd in the zone of this profile.
+     */
+    public String formatDate(long epochSeconds) {
+        return dateFormatter.format(Instant.ofEpochSecond(epochSeconds));
+    }
+
+    /**
+     * Builds the download link of the given download id.
+     */
+    public String downloadLink(String downloadId) {
+        return String.format(downloadFormat, downloadId);
+    }
+
+    private static String orElse(String value, String fallback) {
+        return value != null ? value : fallback;
+    }
+
+    private static String require(String name, String property, String value) {
+        if (StringUtils.isBlank(value)) {
+            throw invalid(name, property + " is not set");
+        }
+        return value;
+    }
+
+    private static Pattern compile(String name, String pagePattern) {
+        try {
+            return Pattern.compile(pagePattern);
+        } catch (PatternSyntaxException e) {
+            throw invalid(name, "page-pattern is not a valid regular expression: " + e.getDescription());
+        }
+    }
+
+    private static IllegalStateException invalid(String name, String problem) {
+        return new IllegalStateException("Extraction profile '" + name + "': " + problem);
+    }
+
+    @Override
+    public String toString() {
+        return "ExtractionProfile[" + name + "]";
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.files.downloader.service;
+
+import com.files.downloader.config.CustomProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@link ExtractionProfile}s compiled from {@link CustomProperties}: the default one and one per
+ * {@code custom.profiles} entry. They are compiled once at startup, so an invalid configuration fails fast.
+ */
+@Component
+@Slf4j
+public final class ExtractionProfiles {
+
+    private final ExtractionProfile defaultProfile;
+
+    private final List<ExtractionProfile> profiles;
+
+    /**
+     * @throws IllegalStateException if a profile is invalid
+     */
+    public ExtractionProfiles(CustomProperties customProperties) {
+        this.defaultProfile = ExtractionProfile.of(customProperties);
+        List<ExtractionProfile> compiled = new ArrayList<>();
+        for (Map.Entry<String, CustomProperties.Profile> entry : customProperties.getProfiles().entrySet()) {
+            compiled.add(ExtractionProfile.of(entry.getKey(), entry.getValue(), customProperties));
+        }
+        this.profiles = List.copyOf(compiled);
+        log.info("Compiled {} extraction profile(s)", profiles.size() + 1);
+    }
+
+    /**
+     * Returns the profile built from the top-level {@code custom.*} properties.
+     */
+    public ExtractionProfile getDefault() {
+        return defaultProfile;
+    }
+
+    /**
+     * Returns the first profile, in configuration order, whose page pattern matches the url, otherwise
+     * the default profile.
+     */
+    public ExtractionProfile forPage(String pageUrl) {
+        for (ExtractionProfile profile : profiles) {
+            if (profile.matchesPage(pageUrl)) {
+                return profile;
+            }
+        }
+        return defaultProfile;
+    }
+
+}
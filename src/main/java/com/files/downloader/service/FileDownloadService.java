@@ -1,29 +1,46 @@
 package com.files.downloader.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.files.downloader.config.CustomProperties;
 import com.files.downloader.config.DownloadProperties;
 import com.files.downloader.config.PortalProperties;
+import com.files.downloader.dto.PageContent;
+import com.files.downloader.dto.TransferResult;
 import com.files.downloader.dto.UrlDownloadNode;
 import com.files.downloader.dto.UrlNode;
 import com.files.downloader.model.DownloadedFile;
-import com.files.downloader.repository.DownloadedFileRepository;
-import jakarta.transaction.Transactional;
+import com.files.downloader.model.FailedDownload;
+import com.files.downloader.model.PageSnapshot;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
-import org.springframework.http.HttpEntity;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
-import java.io.File;
-import java.io.FileOutputStream;
+import java.io.IOException;
 import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 @Slf4j
@@ -33,30 +50,63 @@ public class FileDownloadService {
 
     private final DownloadProperties downloadProperties;
 
-    private final DownloadedFileRepository downloadedFileRepository;
+    private final DownloadedFileWriter downloadedFileWriter;
 
     private final PortalAuthService portalAuthService;
 
     private final RestTemplate restTemplate;
 
-    private final CustomProperties customProperties;
-
     private final HtmlContentParsingService htmlContentParsingService;
 
+    private final FileTransferService fileTransferService;
+
+    private final ExecutorService downloadExecutor;
+
+    private final UrlNodeJsonExtractor urlNodeJsonExtractor;
+
+    private final KnownDownloadIndex knownDownloadIndex;
+
+    private final PageCacheService pageCacheService;
+
+    private final SyncWatermarkService syncWatermarkService;
+
+    private final DownloadMetrics downloadMetrics;
+
+    private final DownloadRetryQueue downloadRetryQueue;
+
+    private final ExtractionProfiles extractionProfiles;
+
     public FileDownloadService(PortalProperties portalProperties,
                                DownloadProperties downloadProperties,
-                               DownloadedFileRepository downloadedFileRepository,
+                               DownloadedFileWriter downloadedFileWriter,
                                PortalAuthService portalAuthService,
-                               CustomProperties customProperties,
-                               HtmlContentParsingService htmlContentParsingService
+                               HtmlContentParsingService htmlContentParsingService,
+                               FileTransferService fileTransferService,
+                               @Qualifier("downloadExecutor") ExecutorService downloadExecutor,
+                               RestTemplate portalRestTemplate,
+                               UrlNodeJsonExtractor urlNodeJsonExtractor,
+                               KnownDownloadIndex knownDownloadIndex,
+                               PageCacheService pageCacheService,
+                               SyncWatermarkService syncWatermarkService,
+                               DownloadMetrics downloadMetrics,
+                               DownloadRetryQueue downloadRetryQueue,
+                               ExtractionProfiles extractionProfiles
     ) {
         this.portalProperties = portalProperties;
         this.downloadProperties = downloadProperties;
-        this.downloadedFileRepository = downloadedFileRepository;
+        this.downloadedFileWriter = downloadedFileWriter;
         this.portalAuthService = portalAuthService;
-        this.customProperties = customProperties;
         this.htmlContentParsingService = htmlContentParsingService;
-        this.restTemplate = new RestTemplate();
+        this.fileTransferService = fileTransferService;
+        this.downloadExecutor = downloadExecutor;
+        this.restTemplate = portalRestTemplate;
+        this.urlNodeJsonExtractor = urlNodeJsonExtractor;
+        this.knownDownloadIndex = knownDownloadIndex;
+        this.pageCacheService = pageCacheService;
+        this.syncWatermarkService = syncWatermarkService;
+        this.downloadMetrics = downloadMetrics;
+        this.downloadRetryQueue = downloadRetryQueue;
+        this.extractionProfiles = extractionProfiles;
     }
 
     /**
@@ -64,119 +114,365 @@ public class FileDownloadService {
      * retrieves the protected resource page, extracts downloadable file links,
      * downloads new files, and records each download.
      */
-    @Transactional
     public void fetchAndDownloadFiles(String pageName) {
-        // Log in to the portal and get the session cookie.
-        String sessionCookie = portalAuthService.loginAndGetSessionCookie();
+        fetchAndDownloadFiles(new DownloadJob(pageName == null ? List.of() : List.of(pageName), false));
+    }
+
+    /**
+     * Crawls the pages of the given job, updating its progress counters. The pages of the job, or the
+     * resource page if it names none, seed a deduplicated frontier; with pagination enabled, every page
+     * links found in their data-content JSON are added as well. Pages are fetched in parallel, at most
+     * {@code download.crawl.max-concurrent-pages} at a time, and the items of each page are handed to the
+     * download stage as soon as that page has been read.
+     * <p>
+     * An incremental job skips items dated before the watermark of its first page and does not follow
+     * pagination past them. Once every page and item succeeded and every record was saved, the watermark
+     * advances to the newest item date seen.
+     * A job that cannot log in, or reads none of its pages, is marked failed.
+     */
+    public void fetchAndDownloadFiles(DownloadJob job) {
+        // Log in to the portal, or reuse the cached session.
+        String sessionCookie = portalAuthService.getSessionCookie();
         if (sessionCookie == null) {
             log.error("Failed to log in to the portal.");
+            job.fail("Failed to log in to the portal");
             return;
         }
 
-        String resourceName = portalProperties.getResourceUrl();
-        if (pageName != null && !pageName.isBlank()) {
-            resourceName = resourceName + pageName;
+        List<String> resourceNames = new ArrayList<>();
+        List<String> pageNames = job.getPageNames().isEmpty() ? Collections.singletonList(null) : job.getPageNames();
+        for (String pageName : pageNames) {
+            String resourceName = portalProperties.getResourceUrl();
+            if (pageName != null && !pageName.isBlank()) {
+                resourceName = resourceName + pageName;
+            }
+            resourceNames.add(resourceName);
         }
-        // Use the session cookie in headers.
-        HttpHeaders headers = new HttpHeaders();
-        headers.add(HttpHeaders.COOKIE, sessionCookie);
-        HttpEntity<String> entity = new HttpEntity<>(headers);
+        String watermarkKey = job.isIncremental() ? resourceNames.getFirst() : null;
+        Crawl crawl = new Crawl(job, watermarkKey == null ? null : syncWatermarkService.find(watermarkKey));
+        resourceNames.forEach(crawl::enqueue);
+        try {
+            crawl.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            crawl.cancel();
+            log.error("Interrupted while downloading files for job {}", job.getId());
+            job.fail("Interrupted");
+            return;
+        } finally {
+            // Commit the records of this run before returning.
+            crawl.recordsSaved = downloadedFileWriter.flushSince(crawl.recordMark);
+        }
+        if (job.getPagesFetched().get() == 0 && crawl.lastError != null) {
+            job.fail(crawl.lastError);
+            return;
+        }
+        if (watermarkKey != null && !crawl.recordsSaved) {
+            log.warn("Records of job {} were not all saved, keeping the sync watermark", job.getId());
+        } else if (watermarkKey != null && !crawl.incomplete && crawl.newestItem.get() != Long.MIN_VALUE) {
+            syncWatermarkService.advance(watermarkKey, crawl.newestItem.get());
+        }
+    }
 
+    /**
+     * Fetches one listing page, queues the pages it links to and downloads its new items. The page and the
+     * detail pages of its items are read with the extraction profile selected by the page url.
+     */
+    private void processPage(String resourceName, Crawl crawl) throws IOException, InterruptedException {
+        DownloadJob job = crawl.job;
+        ExtractionProfile profile = extractionProfiles.forPage(resourceName);
+        // Retrieve the protected resource page, extracting its data-content JSON as it streams in.
+        // Send the validators of the last processed version so an unchanged page costs a 304.
+        PageSnapshot snapshot = pageCacheService.find(resourceName);
+        PageContent page;
+        crawl.pageSlots.acquire();
         try {
-            // Retrieve the protected resource page.
-            ResponseEntity<String> response = restTemplate.exchange(
-                    resourceName,
-                    HttpMethod.GET,
-                    entity,
-                    String.class
-            );
+            page = fetchPage(resourceName, snapshot, job, DownloadMetrics.LISTING);
+        } finally {
+            crawl.pageSlots.release();
+        }
+        job.pageFetched();
+        if (page.isNotModified()) {
+            log.info("{} not modified since the last run", resourceName);
+            if (job.isFollowPagination()) {
+                // The pages it links to may have changed; the 304 carries no body to read their links from.
+                pageCacheService.pageLinks(snapshot).forEach(crawl::enqueue);
+            }
+            return;
+        }
+        String dataContent = page.getDataContent();
+        if (dataContent == null) {
+            log.info("No content returned from the portal for {}.", resourceName);
+            return;
+        }
 
-            String htmlContent = response.getBody();
-            if (htmlContent == null) {
-                log.info("No content returned from the portal.");
-                return;
+        // Filter the JSON down to the file links and pagination links in a single streaming pass.
+        List<String> pageLinks = new ArrayList<>();
+        long parseStarted = System.nanoTime();
+        List<UrlNode> urlNodes = distinctById(urlNodeJsonExtractor.extractUrlNodes(dataContent, pageLinks, profile));
+        downloadMetrics.parsed(job, DownloadMetrics.LISTING, System.nanoTime() - parseStarted, urlNodes.size());
+        boolean reachedWatermark = false;
+        for (UrlNode urlNode : urlNodes) {
+            if (urlNode.getDateEpochSeconds() != null) {
+                crawl.newestItem.accumulateAndGet(urlNode.getDateEpochSeconds(), Math::max);
+                reachedWatermark |= crawl.isBeforeWatermark(urlNode);
             }
+        }
+        // The listing is newest first: past the watermark, further pages only hold older items.
+        List<String> nextPages = reachedWatermark ? List.of()
+                : pageLinks.stream().map(pageLink -> resolvePageLink(resourceName, pageLink)).toList();
+        if (job.isFollowPagination()) {
+            nextPages.forEach(crawl::enqueue);
+        }
+        String contentDigest = pageCacheService.digest(urlNodes);
+        if (pageCacheService.isUnchanged(snapshot, contentDigest)) {
+            log.info("{} lists the same {} items as in the last run", resourceName, urlNodes.size());
+            pageCacheService.record(resourceName, page.getEtag(), page.getLastModified(), contentDigest,
+                    nextPages);
+            return;
+        }
+        if (reachedWatermark) {
+            int listed = urlNodes.size();
+            urlNodes.removeIf(crawl::isBeforeWatermark);
+            log.info("{} of {} items on {} are older than the sync watermark", listed - urlNodes.size(), listed,
+                    resourceName);
+        }
+        // An item listed on several pages is handled by the first page that lists it.
+        urlNodes.removeIf(urlNode -> !crawl.items.add(urlNode.getId()));
+        int found = urlNodes.size();
+        // Skip items downloaded by earlier runs before resolving their detail pages.
+        urlNodes.removeIf(urlNode -> knownDownloadIndex.isKnownSource(urlNode.getId()));
+        log.info("Found {} items on {}, {} already downloaded", found, resourceName, found - urlNodes.size());
+        job.found(found);
+        skipped(job, found - urlNodes.size());
 
-            // Parse the HTML to extract file links.
-            List<UrlNode> urlNodes = processHtmlContent(htmlContent);
-            if (!urlNodes.isEmpty()) {
-                UrlNode urlNode = urlNodes.getFirst();
-                ResponseEntity<String> responseDownload = restTemplate.exchange(
-                        urlNode.getUrl(),
-                        HttpMethod.GET,
-                        entity,
-                        String.class
-                );
-
-                String htmlDownloadContent = responseDownload.getBody();
-                UrlDownloadNode downloadNode = processHtmlDownloadContent(htmlDownloadContent);
-                Optional.ofNullable(downloadNode.getId())
-                        .filter(StringUtils::isNotBlank)
-                        .map(id -> {
-                            String downloadFileLink = String.format(customProperties.getDownload(), id);
-                            Optional<DownloadedFile> existingFile = downloadedFileRepository.findByFileUrl(urlNode.getId());
-                            if (existingFile.isEmpty()) {
-                                log.info("File already downloaded: {}", urlNode.getId());
-                            }
-                            // Download the file using the same session cookie.
-                            downloadFile(downloadFileLink, headers, urlNode);
-                            return id;
-                        });
-                log.info("");
+        // Resolve and download every item concurrently; the limiter bounds requests in flight.
+        long recordMark = downloadedFileWriter.mark();
+        List<Future<Boolean>> tasks = new ArrayList<>(urlNodes.size());
+        for (UrlNode urlNode : urlNodes) {
+            tasks.add(downloadExecutor.submit(() -> resolveAndDownload(urlNode, profile, job)));
+        }
+        int failed = 0;
+        for (Future<Boolean> task : tasks) {
+            try {
+                if (!task.get()) {
+                    failed++;
+                }
+            } catch (ExecutionException e) {
+                failed++;
+                failed(job);
+                log.error("Error processing item: {}", e.getCause().getMessage());
             }
-        } catch (Exception ex) {
-            log.error("Error fetching or parsing the portal page: {}", ex.getMessage());
+        }
+        // The snapshot must not be ahead of the records it vouches for.
+        boolean saved = downloadedFileWriter.flushSince(recordMark);
+        if (failed == 0 && saved) {
+            // Only a fully processed page may short-circuit later runs.
+            pageCacheService.record(resourceName, page.getEtag(), page.getLastModified(), contentDigest,
+                    nextPages);
+        } else if (failed == 0) {
+            crawl.incomplete = true;
+            log.warn("Records of the items on {} were not all saved", resourceName);
+        } else {
+            crawl.incomplete = true;
+            log.warn("{} of {} items on {} failed", failed, urlNodes.size(), resourceName);
         }
     }
 
-    public List<UrlNode> processHtmlContent(String htmlContent) {
-        // Extract JSON from the <div> with a data-content attribute.
-        JsonNode dataContentJson = htmlContentParsingService.extractDataContentJson2(htmlContent);
-        // Filter and display the url.
-        return htmlContentParsingService.filterAndDisplayUrl(dataContentJson);
+    /**
+     * Fetches the detail page of a single item, resolves its download id and downloads the file.
+     *
+     * @return false if the item failed and should be attempted again
+     */
+    private boolean resolveAndDownload(UrlNode urlNode, ExtractionProfile profile, DownloadJob job)
+            throws InterruptedException, IOException {
+        Timer.Sample resolveSample = downloadMetrics.start();
+        UrlDownloadNode downloadNode;
+        try {
+            String dataContent = fetchPage(urlNode.getUrl(), null, job, DownloadMetrics.DETAIL).getDataContent();
+            long parseStarted = System.nanoTime();
+            downloadNode = urlNodeJsonExtractor.extractUrlDownloadNode(dataContent, profile);
+            downloadMetrics.parsed(job, DownloadMetrics.DETAIL, System.nanoTime() - parseStarted,
+                    downloadNode == null ? 0 : 1);
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            downloadMetrics.resolved(job, resolveSample, false);
+            throw e;
+        }
+        boolean resolved = downloadNode != null && StringUtils.isNotBlank(downloadNode.getId());
+        downloadMetrics.resolved(job, resolveSample, resolved);
+        if (!resolved) {
+            log.info("No download id found for {}", urlNode.getUrl());
+            skipped(job, 1);
+            return true;
+        }
+        String downloadFileLink = profile.downloadLink(downloadNode.getId());
+        if (knownDownloadIndex.isKnownFile(downloadFileLink)) {
+            log.info("File already downloaded: {}", downloadFileLink);
+            skipped(job, 1);
+            return true;
+        }
+        // Download the file using the same session cookie.
+        return downloadFile(downloadNode.getId(), downloadFileLink, fileNameFor(urlNode, profile), urlNode.getId(), job);
     }
 
-    public UrlDownloadNode processHtmlDownloadContent(String htmlDownloadContent) {
-        JsonNode dataDownloadContentJson = htmlContentParsingService.extractDataContentJson2(htmlDownloadContent);
-        return htmlContentParsingService.filterUrlDownloadNode(dataDownloadContentJson);
+    /**
+     * Downloads a file queued by {@link DownloadRetryQueue}, using the download link and file name that
+     * were resolved when it first failed. A further failure is recorded in the queue again.
+     *
+     * @return whether the file was downloaded
+     */
+    public boolean retryDownload(FailedDownload failedDownload, DownloadJob job) {
+        return downloadFile(failedDownload.getDownloadId(), failedDownload.getFileUrl(),
+                failedDownload.getFileName(), failedDownload.getSourceId(), job);
     }
 
-    private void downloadFile(String fileUrl, HttpHeaders headers, UrlNode urlNode) {
+    /**
+     * Fetches a portal page with the cached session, logging in again once if the session was rejected,
+     * and extracts its data-content JSON while the body is streamed.
+     *
+     * @param snapshot the last processed version of the page for a conditional request, or null
+     * @param kind     the page kind the request is measured as, see {@link DownloadMetrics}
+     */
+    private PageContent fetchPage(String url, PageSnapshot snapshot, DownloadJob job, String kind)
+            throws IOException, InterruptedException {
+        Timer.Sample sample = downloadMetrics.start();
         try {
-            HttpEntity<Void> requestEntity = new HttpEntity<>(headers);
-            ResponseEntity<byte[]> fileResponse = restTemplate.exchange(
-                    fileUrl,
+            PageContent page = requestPage(url, snapshot);
+            downloadMetrics.pageFetched(job, kind, sample, true, page.getBytes(), page.getTransferredBytes());
+            return page;
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            downloadMetrics.pageFetched(job, kind, sample, false, 0, 0);
+            throw e;
+        }
+    }
+
+    private PageContent requestPage(String url, PageSnapshot snapshot) throws IOException, InterruptedException {
+        return portalAuthService.withSession(sessionCookie -> {
+            return restTemplate.execute(
+                    url,
                     HttpMethod.GET,
-                    requestEntity,
-                    byte[].class
+                    request -> {
+                        request.getHeaders().add(HttpHeaders.COOKIE, sessionCookie);
+                        if (downloadProperties.isPageCompression()) {
+                            request.getHeaders().set(HttpHeaders.ACCEPT_ENCODING, ContentDecoding.ACCEPT_ENCODING);
+                        }
+                        pageCacheService.applyValidators(snapshot, request.getHeaders());
+                    },
+                    response -> {
+                        HttpHeaders headers = response.getHeaders();
+                        if (portalAuthService.isLoginRedirect(response.getStatusCode(), headers)) {
+                            throw new PortalSessionExpiredException("Redirected to the login page: " + url);
+                        }
+                        if (response.getStatusCode().value() == HttpStatus.NOT_MODIFIED.value()) {
+                            return new PageContent(null, true, headers.getETag(),
+                                    headers.getFirst(HttpHeaders.LAST_MODIFIED), 0, 0);
+                        }
+                        // Decompress as the body streams in, so only the extracted data-content is buffered.
+                        CountingInputStream transferred = new CountingInputStream(response.getBody());
+                        String dataContent;
+                        long bytes;
+                        try (CountingInputStream body = new CountingInputStream(ContentDecoding.decode(
+                                transferred, headers.getFirst(HttpHeaders.CONTENT_ENCODING)))) {
+                            dataContent = htmlContentParsingService.extractDataContent(body, charsetOf(headers));
+                            bytes = body.getCount();
+                        }
+                        return new PageContent(dataContent, false, headers.getETag(),
+                                headers.getFirst(HttpHeaders.LAST_MODIFIED), bytes, transferred.getCount());
+                    }
             );
+        });
+    }
 
-            if (fileResponse.getStatusCode().is2xxSuccessful() && fileResponse.getBody() != null) {
-                File dir = new File(downloadProperties.getDir());
-                if (!dir.exists()) {
-                    dir.mkdirs();
-                }
-                String fileName = getFileNameFromLink(urlNode);
-                File localFile = new File(dir, fileName);
-                try (FileOutputStream fos = new FileOutputStream(localFile)) {
-                    fos.write(fileResponse.getBody());
-                }
-                DownloadedFile downloadedFile = new DownloadedFile(
-                        fileUrl,
-                        localFile.getAbsolutePath(),
-                        LocalDateTime.now()
-                );
-                downloadedFileRepository.save(downloadedFile);
-                log.info("Downloaded and saved file: " + localFile.getAbsolutePath());
-            } else {
-                log.info("Failed to download file: {} (HTTP {})",
-                        fileUrl, fileResponse.getStatusCode());
+    /**
+     * Resolves a pagination link against the page it was found on. URI.resolve follows RFC 2396, which
+     * drops the path for a query-only reference such as "?page=2", so that case is handled here.
+     */
+    private static String resolvePageLink(String pageUrl, String pageLink) {
+        if (pageLink.startsWith("?")) {
+            int query = pageUrl.indexOf('?');
+            return (query < 0 ? pageUrl : pageUrl.substring(0, query)) + pageLink;
+        }
+        return URI.create(pageUrl).resolve(pageLink).toString();
+    }
+
+    private static Charset charsetOf(HttpHeaders headers) {
+        MediaType contentType = headers.getContentType();
+        return contentType != null && contentType.getCharset() != null
+                ? contentType.getCharset()
+                : StandardCharsets.UTF_8;
+    }
+
+    private static List<UrlNode> distinctById(List<UrlNode> urlNodes) {
+        Map<String, UrlNode> byId = new LinkedHashMap<>();
+        for (UrlNode urlNode : urlNodes) {
+            byId.putIfAbsent(urlNode.getId(), urlNode);
+        }
+        return new ArrayList<>(byId.values());
+    }
+
+    /**
+     * Downloads a resolved file; a failure is recorded in the retry queue.
+     *
+     * @param fileName the target file name, relative to {@code download.dir}
+     */
+    private boolean downloadFile(String downloadId, String fileUrl, String fileName, String sourceId, DownloadJob job) {
+        String error;
+        try {
+            Path localFile = Path.of(downloadProperties.getDir(), fileName).toAbsolutePath();
+            // Stream the body straight to disk, continuing an interrupted attempt where possible.
+            TransferResult result = portalAuthService.withSession(
+                    sessionCookie -> fileTransferService.download(fileUrl, localFile, sessionCookie));
+            if (result == null) {
+                failed(job);
+                queueRetry(downloadId, fileUrl, fileName, sourceId, "No file received");
+                return false;
             }
+            DownloadedFile downloadedFile = new DownloadedFile(
+                    fileUrl,
+                    localFile.toString(),
+                    LocalDateTime.now(),
+                    sourceId
+            );
+            downloadedFile.setContentSha256(result.getContentSha256());
+            downloadedFile.setContentLength(result.getContentLength());
+            downloadedFile.setEtag(result.getEtag());
+            downloadedFileWriter.submit(downloadedFile);
+            log.info("Downloaded and saved file: {} ({} bytes, {} bytes/s)",
+                    localFile, result.getBytes(), result.bytesPerSecond());
+            job.downloaded(result.getBytes());
+            downloadMetrics.downloaded(job, result.getBytes(), result.getElapsedNanos(), result.isDeduplicated());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Interrupted while downloading file: {}", fileUrl);
+            error = "Interrupted";
         } catch (Exception e) {
             log.error("Error downloading file: " + fileUrl + " => " + e.getMessage());
+            error = e.getClass().getSimpleName() + ": " + e.getMessage();
+        }
+        failed(job);
+        queueRetry(downloadId, fileUrl, fileName, sourceId, error);
+        return false;
+    }
+
+    private void queueRetry(String downloadId, String fileUrl, String fileName, String sourceId, String error) {
+        try {
+            downloadRetryQueue.failed(downloadId, fileUrl, fileName, sourceId, error);
+        } catch (RuntimeException e) {
+            log.error("Error queueing {} for retry: {}", fileUrl, e.getMessage());
         }
     }
 
+    private void skipped(DownloadJob job, long items) {
+        job.skipped(items);
+        downloadMetrics.skipped(job, items);
+    }
+
+    private void failed(DownloadJob job) {
+        job.failed();
+        downloadMetrics.failed(job);
+    }
+
     /**
      * Converts a hyphen-separated string into a title case string.
      * Example: "that-name" => "That Name"
@@ -201,7 +497,13 @@ public class FileDownloadService {
         return sb.toString().trim();
     }
 
-    private String getFileNameFromLink(UrlNode urlNode) {
+    /**
+     * Derives the readable file name of an item from the category and slug segments of its url,
+     * e.g. "Category Name - Item Name - 2025-01-31 - 7".
+     *
+     * @param profile the profile whose ext marker and item number are stripped from the slug
+     */
+    static String fileNameFor(UrlNode urlNode, ExtractionProfile profile) {
         try {
             // Parse the URL to extract the path.
             URI uri = new URI(urlNode.getUrl());
@@ -216,7 +518,7 @@ public class FileDownloadService {
 
                 // Process the first segment into title case.
                 String titleFirstSegment = toTitleCase(firstSegment);
-                String processedSecond = secondSegment.replaceAll(customProperties.getExt()+"\\d+$", "");
+                String processedSecond = profile.stripSlugSuffix(secondSegment);
                 String titleSecondSegment = toTitleCase(processedSecond);
                 return titleFirstSegment + " - " + titleSecondSegment + " - " + urlNode.getFormattedDate() + " - " + urlNode.getVote();
             } else {
@@ -242,4 +544,87 @@ public class FileDownloadService {
         return fileName.isEmpty() ? "file_" + System.currentTimeMillis() : fileName;
     }
 
+    /**
+     * Frontier and shared state of one crawl. Page tasks add the pages they discover before they complete,
+     * so draining the task queue until it is empty waits for the whole crawl.
+     */
+    private final class Crawl {
+
+        private final DownloadJob job;
+
+        private final Set<String> pages = ConcurrentHashMap.newKeySet();
+
+        private final Set<String> items = ConcurrentHashMap.newKeySet();
+
+        private final Queue<Future<?>> tasks = new ConcurrentLinkedQueue<>();
+
+        private final Semaphore pageSlots = new Semaphore(downloadProperties.getCrawl().getMaxConcurrentPages());
+
+        private final AtomicInteger pageBudget = new AtomicInteger(downloadProperties.getCrawl().getMaxPages());
+
+        /**
+         * Item date, in epoch seconds, below which items are skipped; null outside incremental syncs.
+         */
+        private final Long watermark;
+
+        private final AtomicLong newestItem = new AtomicLong(Long.MIN_VALUE);
+
+        /**
+         * {@link DownloadedFileWriter#mark()} when the crawl started.
+         */
+        private final long recordMark = downloadedFileWriter.mark();
+
+        /**
+         * Set when a page or an item failed or was left out, so the watermark must stay where it is.
+         */
+        private volatile boolean incomplete;
+
+        private boolean recordsSaved;
+
+        private volatile String lastError;
+
+        private Crawl(DownloadJob job, Long watermark) {
+            this.job = job;
+            this.watermark = watermark;
+        }
+
+        private boolean isBeforeWatermark(UrlNode urlNode) {
+            return watermark != null && urlNode.getDateEpochSeconds() != null
+                    && urlNode.getDateEpochSeconds() < watermark;
+        }
+
+        private void enqueue(String pageUrl) {
+            if (!pages.add(pageUrl)) {
+                return;
+            }
+            if (pageBudget.getAndDecrement() <= 0) {
+                incomplete = true;
+                log.warn("Crawl page limit reached, not fetching {}", pageUrl);
+                return;
+            }
+            tasks.add(downloadExecutor.submit(() -> {
+                processPage(pageUrl, this);
+                return null;
+            }));
+        }
+
+        private void await() throws InterruptedException {
+            Future<?> task;
+            while ((task = tasks.poll()) != null) {
+                try {
+                    task.get();
+                } catch (ExecutionException e) {
+                    incomplete = true;
+                    lastError = e.getCause().getMessage();
+                    job.pageFailed();
+                    log.error("Error fetching or parsing the portal page: {}", lastError);
+                }
+            }
+        }
+
+        private void cancel() {
+            tasks.forEach(task -> task.cancel(true));
+        }
+    }
+
 }
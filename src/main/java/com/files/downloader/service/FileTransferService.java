@@ -0,0 +1,535 @@
+package com.files.downloader.service;
+
+import com.files.downloader.config.DownloadProperties;
+import com.files.downloader.dto.TransferResult;
+import com.files.downloader.model.DownloadedFile;
+import com.files.downloader.model.PartialDownload;
+import com.files.downloader.repository.DownloadedFileRepository;
+import com.files.downloader.repository.PartialDownloadRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@Service
+@Slf4j
+public class FileTransferService {
+
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes (\\d+)-(\\d+)/(\\d+|\\*)");
+
+    private final DownloadProperties downloadProperties;
+
+    private final PartialDownloadRepository partialDownloadRepository;
+
+    private final PortalAuthService portalAuthService;
+
+    private final RestTemplate restTemplate;
+
+    private final DownloadedFileRepository downloadedFileRepository;
+
+    private final BlobStore blobStore;
+
+    private final ExecutorService downloadExecutor;
+
+    private final Set<String> activeDownloads = ConcurrentHashMap.newKeySet();
+
+    public FileTransferService(DownloadProperties downloadProperties,
+                               PartialDownloadRepository partialDownloadRepository,
+                               PortalAuthService portalAuthService,
+                               RestTemplate portalRestTemplate,
+                               DownloadedFileRepository downloadedFileRepository,
+                               BlobStore blobStore,
+                               @Qualifier("downloadExecutor") ExecutorService downloadExecutor) {
+        this.downloadProperties = downloadProperties;
+        this.partialDownloadRepository = partialDownloadRepository;
+        this.portalAuthService = portalAuthService;
+        this.restTemplate = portalRestTemplate;
+        this.downloadedFileRepository = downloadedFileRepository;
+        this.blobStore = blobStore;
+        this.downloadExecutor = downloadExecutor;
+    }
+
+    /**
+     * Downloads a file into a .part file using a fixed-size buffer, then atomically renames it to the target.
+     * Heap use stays bounded by the buffer size regardless of the size of the file.
+     * <p>
+     * If an earlier attempt left a .part file, the download continues with a Range request guarded by
+     * If-Range; when the server ignores the range or the file changed, it restarts from byte zero. A .part
+     * file that already holds the expected length is completed without a request.
+     * <p>
+     * The SHA-256 of the content is computed while it is written. With content-addressed storage the
+     * completed file becomes a blob and the target a link to it; identical content is stored once, and a
+     * response whose strong ETag and length match an earlier download is linked without reading its body.
+     * <p>
+     * With {@code download.segmented.enabled}, a file of at least the threshold size that the server serves
+     * with byte ranges is fetched as parallel range requests instead; see {@link #segmentedTransfer}.
+     *
+     * @param fileUrl       the download link
+     * @param target        the final location of the file
+     * @param sessionCookie the portal session cookie
+     * @return the transfer summary, or null if the server did not return the file
+     */
+    public TransferResult download(String fileUrl, Path target, String sessionCookie) throws IOException {
+        // Two transfers of the same link would write to the same .part file.
+        if (!activeDownloads.add(fileUrl)) {
+            throw new IOException("Download already in progress: " + fileUrl);
+        }
+        try {
+            return transfer(fileUrl, target, sessionCookie);
+        } finally {
+            activeDownloads.remove(fileUrl);
+        }
+    }
+
+    private TransferResult transfer(String fileUrl, Path target, String sessionCookie) throws IOException {
+        Path partFile = partFileFor(fileUrl);
+        Files.createDirectories(partFile.getParent());
+        PartialDownload state = resumeState(fileUrl, partFile);
+        long offset = state == null ? 0 : Files.size(partFile);
+        long started = System.nanoTime();
+        if (state != null && state.getExpectedLength() != null && offset == state.getExpectedLength()) {
+            // The previous attempt already received every byte; a Range request would only get a 416.
+            MessageDigest digest = sha256();
+            digestFile(partFile, digest);
+            return complete(fileUrl, partFile, target, 0, started, HexFormat.of().formatHex(digest.digest()),
+                    offset, state.getEtag());
+        }
+        if (state == null && downloadProperties.getSegmented().isEnabled()) {
+            TransferResult segmented = segmentedTransfer(fileUrl, partFile, target, sessionCookie, started);
+            if (segmented != null) {
+                return segmented;
+            }
+        }
+
+        return restTemplate.execute(
+                fileUrl,
+                HttpMethod.GET,
+                request -> {
+                    HttpHeaders headers = request.getHeaders();
+                    headers.add(HttpHeaders.COOKIE, sessionCookie);
+                    if (offset > 0) {
+                        headers.set(HttpHeaders.RANGE, "bytes=" + offset + "-");
+                        headers.set(HttpHeaders.IF_RANGE,
+                                state.getEtag() != null ? state.getEtag() : state.getLastModified());
+                    }
+                },
+                response -> {
+                    if (portalAuthService.isLoginRedirect(response.getStatusCode(), response.getHeaders())) {
+                        throw new PortalSessionExpiredException("Redirected to the login page: " + fileUrl);
+                    }
+                    if (!response.getStatusCode().is2xxSuccessful()) {
+                        log.info("Failed to download file: {} (HTTP {})", fileUrl, response.getStatusCode());
+                        return null;
+                    }
+                    return receive(fileUrl, partFile, target, state, offset, started, response);
+                }
+        );
+    }
+
+    private TransferResult receive(String fileUrl, Path partFile, Path target, PartialDownload state, long offset,
+                                   long started, ClientHttpResponse response) throws IOException {
+        HttpHeaders headers = response.getHeaders();
+        long start = 0;
+        Long expectedLength = headers.getContentLength() >= 0 ? headers.getContentLength() : null;
+        if (response.getStatusCode().value() == HttpStatus.PARTIAL_CONTENT.value()) {
+            Matcher range = CONTENT_RANGE.matcher(String.valueOf(headers.getFirst(HttpHeaders.CONTENT_RANGE)));
+            if (offset == 0 || !range.matches() || Long.parseLong(range.group(1)) != offset) {
+                discard(fileUrl, partFile);
+                throw new IOException("Unexpected Content-Range for " + fileUrl + ": "
+                        + headers.getFirst(HttpHeaders.CONTENT_RANGE));
+            }
+            start = offset;
+            expectedLength = "*".equals(range.group(3)) ? null : Long.valueOf(range.group(3));
+            log.info("Resuming download of {} at byte {}", fileUrl, offset);
+        } else if (offset > 0) {
+            log.info("Server sent the full file for {}, restarting from byte 0", fileUrl);
+        }
+
+        if (state == null) {
+            state = new PartialDownload(fileUrl, partFile.toString());
+        }
+        state.setEtag(strongEtag(headers.getETag()));
+        state.setLastModified(headers.getFirst(HttpHeaders.LAST_MODIFIED));
+        state.setExpectedLength(expectedLength);
+        state.setDownloadedBytes(start);
+        if (start == 0) {
+            TransferResult reused = reuseKnownContent(fileUrl, partFile, target, state, started);
+            if (reused != null) {
+                return reused;
+            }
+        }
+        boolean resumable = downloadProperties.getResume().isEnabled()
+                && (state.getEtag() != null || state.getLastModified() != null);
+        if (resumable && expectedLength != null
+                && expectedLength >= downloadProperties.getResume().getPersistThreshold().toBytes()) {
+            state = saveState(state);
+        }
+
+        long written = start;
+        MessageDigest digest = sha256();
+        if (start > 0) {
+            // The hash covers the bytes of the earlier attempt too.
+            digestFile(partFile, digest);
+        }
+        try (OutputStream out = start > 0
+                ? Files.newOutputStream(partFile, StandardOpenOption.APPEND)
+                : Files.newOutputStream(partFile)) {
+            written += copy(response.getBody(), out, digest);
+        } catch (IOException | RuntimeException e) {
+            if (resumable) {
+                state.setDownloadedBytes(Files.exists(partFile) ? Files.size(partFile) : 0);
+                saveState(state);
+                log.info("Download of {} interrupted at byte {}, it will be resumed",
+                        fileUrl, state.getDownloadedBytes());
+            } else {
+                discard(fileUrl, partFile);
+            }
+            throw e;
+        }
+
+        if (expectedLength != null && written != expectedLength) {
+            // Keep the .part file: a retry can continue where this attempt stopped.
+            if (resumable) {
+                state.setDownloadedBytes(written);
+                saveState(state);
+            }
+            throw new IOException("Incomplete download of " + fileUrl + ": "
+                    + written + " of " + expectedLength + " bytes");
+        }
+        return complete(fileUrl, partFile, target, written - start, started,
+                HexFormat.of().formatHex(digest.digest()), written, state.getEtag());
+    }
+
+    /**
+     * Probes the file with HEAD and, if it is large enough and served with byte ranges and a validator,
+     * downloads it as up to {@code download.segmented.segments} ranges in parallel. Each range is written
+     * at its offset of a preallocated .part file; If-Range makes a file that changes in between fail
+     * the transfer instead of mixing versions. The assembled length is verified before the file is hashed
+     * and completed. A HEAD answered with an error status, or without a length, Accept-Ranges or a
+     * validator, falls back to the single stream.
+     *
+     * @return the transfer summary, or null to download the file as a single stream
+     */
+    private TransferResult segmentedTransfer(String fileUrl, Path partFile, Path target, String sessionCookie,
+                                             long started) throws IOException {
+        DownloadProperties.Segmented segmented = downloadProperties.getSegmented();
+        PartialDownload probe;
+        try {
+            probe = restTemplate.execute(
+                    fileUrl,
+                    HttpMethod.HEAD,
+                    request -> request.getHeaders().add(HttpHeaders.COOKIE, sessionCookie),
+                    response -> {
+                        if (portalAuthService.isLoginRedirect(response.getStatusCode(), response.getHeaders())) {
+                            throw new PortalSessionExpiredException("Redirected to the login page: " + fileUrl);
+                        }
+                        HttpHeaders headers = response.getHeaders();
+                        if (!response.getStatusCode().is2xxSuccessful() || headers.getContentLength() < 0
+                                || !"bytes".equalsIgnoreCase(headers.getFirst(HttpHeaders.ACCEPT_RANGES))) {
+                            return null;
+                        }
+                        PartialDownload state = new PartialDownload(fileUrl, partFile.toString());
+                        state.setEtag(strongEtag(headers.getETag()));
+                        state.setLastModified(headers.getFirst(HttpHeaders.LAST_MODIFIED));
+                        state.setExpectedLength(headers.getContentLength());
+                        return state;
+                    }
+            );
+        } catch (HttpClientErrorException.Unauthorized e) {
+            throw e;
+        } catch (RestClientResponseException e) {
+            // Some servers reject HEAD (403, 405, ...); the single-stream GET may still work.
+            log.debug("HEAD {} answered with HTTP {}, downloading as a single stream", fileUrl, e.getStatusCode());
+            return null;
+        }
+        if (probe == null || probe.getExpectedLength() < segmented.getThreshold().toBytes()
+                || (probe.getEtag() == null && probe.getLastModified() == null)) {
+            return null;
+        }
+        TransferResult reused = reuseKnownContent(fileUrl, partFile, target, probe, started);
+        if (reused != null) {
+            return reused;
+        }
+
+        long length = probe.getExpectedLength();
+        String validator = probe.getEtag() != null ? probe.getEtag() : probe.getLastModified();
+        long minSegmentSize = Math.max(1, segmented.getMinSegmentSize().toBytes());
+        int count = (int) Math.max(1, Math.min(segmented.getSegments(), length / minSegmentSize));
+        long segmentSize = (length + count - 1) / count;
+        log.info("Downloading {} ({} bytes) in {} segments", fileUrl, length, count);
+
+        List<Future<Long>> segments = new ArrayList<>(count);
+        try (FileChannel channel = FileChannel.open(partFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            // Preallocate, so every segment writes within the file.
+            channel.write(ByteBuffer.allocate(1), length - 1);
+            for (long from = 0; from < length; from += segmentSize) {
+                long first = from;
+                long last = Math.min(length, from + segmentSize) - 1;
+                segments.add(downloadExecutor.submit(
+                        () -> fetchSegment(fileUrl, sessionCookie, validator, channel, first, last, length)));
+            }
+            long written = 0;
+            for (Future<Long> segment : segments) {
+                written += segment.get();
+            }
+            if (written != length || channel.size() != length) {
+                throw new IOException("Incomplete segmented download of " + fileUrl + ": "
+                        + written + " of " + length + " bytes");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            segments.forEach(segment -> segment.cancel(true));
+            Files.deleteIfExists(partFile);
+            throw new InterruptedIOException("Interrupted while downloading " + fileUrl);
+        } catch (ExecutionException e) {
+            segments.forEach(segment -> segment.cancel(true));
+            Files.deleteIfExists(partFile);
+            if (e.getCause() instanceof RangeNotHonouredException rangeNotHonoured) {
+                log.info("{}, downloading {} as a single stream", rangeNotHonoured.getMessage(), fileUrl);
+                return null;
+            }
+            if (e.getCause() instanceof RestClientResponseException rejected
+                    && !(rejected instanceof HttpClientErrorException.Unauthorized)) {
+                log.info("Range request answered with HTTP {}, downloading {} as a single stream",
+                        rejected.getStatusCode().value(), fileUrl);
+                return null;
+            }
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException("Segmented download of " + fileUrl + " failed", e.getCause());
+        } catch (IOException | RuntimeException e) {
+            segments.forEach(segment -> segment.cancel(true));
+            Files.deleteIfExists(partFile);
+            throw e;
+        }
+
+        MessageDigest digest = sha256();
+        digestFile(partFile, digest);
+        return complete(fileUrl, partFile, target, length, started, HexFormat.of().formatHex(digest.digest()),
+                length, probe.getEtag());
+    }
+
+    /**
+     * Fetches bytes {@code first..last} of the file and writes them at the same offset of the channel.
+     *
+     * @return the number of bytes written
+     */
+    private long fetchSegment(String fileUrl, String sessionCookie, String validator, FileChannel channel,
+                              long first, long last, long length) {
+        return restTemplate.execute(
+                fileUrl,
+                HttpMethod.GET,
+                request -> {
+                    HttpHeaders headers = request.getHeaders();
+                    headers.add(HttpHeaders.COOKIE, sessionCookie);
+                    headers.set(HttpHeaders.RANGE, "bytes=" + first + "-" + last);
+                    headers.set(HttpHeaders.IF_RANGE, validator);
+                },
+                response -> {
+                    if (portalAuthService.isLoginRedirect(response.getStatusCode(), response.getHeaders())) {
+                        throw new PortalSessionExpiredException("Redirected to the login page: " + fileUrl);
+                    }
+                    Matcher range = CONTENT_RANGE.matcher(
+                            String.valueOf(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)));
+                    if (response.getStatusCode().value() != HttpStatus.PARTIAL_CONTENT.value() || !range.matches()
+                            || Long.parseLong(range.group(1)) != first || Long.parseLong(range.group(2)) != last
+                            || !String.valueOf(length).equals(range.group(3))) {
+                        throw new RangeNotHonouredException("Range " + first + "-" + last + " answered with HTTP "
+                                + response.getStatusCode().value());
+                    }
+                    byte[] buffer = new byte[downloadProperties.getBufferSize()];
+                    InputStream body = response.getBody();
+                    long position = first;
+                    int read;
+                    while ((read = body.read(buffer)) != -1) {
+                        ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+                        while (chunk.hasRemaining()) {
+                            position += channel.write(chunk, position);
+                        }
+                    }
+                    if (position != last + 1) {
+                        throw new IOException("Incomplete range " + first + "-" + last + " of " + fileUrl
+                                + ": " + (position - first) + " bytes");
+                    }
+                    return position - first;
+                }
+        );
+    }
+
+    private TransferResult complete(String fileUrl, Path partFile, Path target, long bytes, long started,
+                                    String contentSha256, long contentLength, String etag) throws IOException {
+        Files.createDirectories(target.toAbsolutePath().getParent());
+        boolean deduplicated = false;
+        if (downloadProperties.getStorage().isContentAddressed()) {
+            deduplicated = blobStore.store(partFile, contentSha256);
+            blobStore.link(contentSha256, target);
+            if (deduplicated) {
+                log.info("{} has the same content as an earlier download ({})", fileUrl, contentSha256);
+            }
+        } else {
+            moveAtomically(partFile, target);
+        }
+        partialDownloadRepository.findByFileUrl(fileUrl).ifPresent(partialDownloadRepository::delete);
+        return new TransferResult(target, bytes, System.nanoTime() - started, contentSha256, contentLength, etag,
+                deduplicated);
+    }
+
+    /**
+     * Links the target to the blob of an earlier download served with the same strong ETag and length,
+     * leaving the response body unread.
+     *
+     * @return the transfer summary, or null if no such download is stored
+     */
+    private TransferResult reuseKnownContent(String fileUrl, Path partFile, Path target, PartialDownload state,
+                                             long started) throws IOException {
+        DownloadProperties.Storage storage = downloadProperties.getStorage();
+        if (!storage.isContentAddressed() || !storage.isReuseByEtag()
+                || state.getEtag() == null || state.getExpectedLength() == null) {
+            return null;
+        }
+        DownloadedFile known = downloadedFileRepository
+                .findFirstByEtagAndContentLengthAndContentSha256NotNull(state.getEtag(), state.getExpectedLength())
+                .orElse(null);
+        if (known == null || !blobStore.contains(known.getContentSha256())) {
+            return null;
+        }
+        discard(fileUrl, partFile);
+        Files.createDirectories(target.toAbsolutePath().getParent());
+        blobStore.link(known.getContentSha256(), target);
+        log.info("{} matches the ETag and length of {}, reusing its content", fileUrl, known.getFileUrl());
+        return new TransferResult(target, 0, System.nanoTime() - started, known.getContentSha256(),
+                state.getExpectedLength(), state.getEtag(), true);
+    }
+
+    /**
+     * Returns the stored state of an earlier attempt if its .part file can be continued, otherwise clears it.
+     */
+    private PartialDownload resumeState(String fileUrl, Path partFile) throws IOException {
+        PartialDownload state = partialDownloadRepository.findByFileUrl(fileUrl).orElse(null);
+        boolean usable = downloadProperties.getResume().isEnabled()
+                && state != null
+                && Files.exists(partFile)
+                && (state.getEtag() != null || state.getLastModified() != null)
+                && (state.getExpectedLength() == null || Files.size(partFile) <= state.getExpectedLength());
+        if (usable) {
+            return state;
+        }
+        if (state != null) {
+            partialDownloadRepository.delete(state);
+        }
+        Files.deleteIfExists(partFile);
+        return null;
+    }
+
+    private PartialDownload saveState(PartialDownload state) {
+        state.setUpdatedAt(LocalDateTime.now());
+        return partialDownloadRepository.save(state);
+    }
+
+    private void discard(String fileUrl, Path partFile) throws IOException {
+        Files.deleteIfExists(partFile);
+        partialDownloadRepository.findByFileUrl(fileUrl).ifPresent(partialDownloadRepository::delete);
+    }
+
+    private long copy(InputStream body, OutputStream out, MessageDigest digest) throws IOException {
+        byte[] buffer = new byte[downloadProperties.getBufferSize()];
+        long bytes = 0;
+        int read;
+        while ((read = body.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+            digest.update(buffer, 0, read);
+            bytes += read;
+        }
+        return bytes;
+    }
+
+    private void digestFile(Path file, MessageDigest digest) throws IOException {
+        byte[] buffer = new byte[downloadProperties.getBufferSize()];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+    }
+
+    private Path partFileFor(String fileUrl) {
+        byte[] digest = sha256().digest(fileUrl.getBytes(StandardCharsets.UTF_8));
+        return Path.of(downloadProperties.getDir(), ".parts", HexFormat.of().formatHex(digest) + ".part")
+                .toAbsolutePath();
+    }
+
+    /**
+     * A range request was answered with the full file, a different range or a changed file.
+     */
+    private static final class RangeNotHonouredException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private RangeNotHonouredException(String message) {
+            super(message);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * If-Range only accepts strong validators.
+     */
+    private static String strongEtag(String etag) {
+        return etag == null || etag.startsWith("W/") ? null : etag;
+    }
+
+    private void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            log.debug("Atomic move not supported for {}, falling back to replace", target);
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+}
@@ -2,7 +2,7 @@ package com.files.downloader.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.files.downloader.config.CustomProperties;
+import com.files.downloader.config.DownloadProperties;
 import com.files.downloader.dto.UrlDownloadNode;
 import com.files.downloader.dto.UrlNode;
 import lombok.extern.slf4j.Slf4j;
@@ -13,10 +13,9 @@ import org.jsoup.nodes.Element;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
-import java.time.Instant;
-import java.time.LocalDate;
-import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -26,13 +25,45 @@ import java.util.Map;
 @Slf4j
 public class HtmlContentParsingService {
 
-    private final CustomProperties customProperties;
+    private final ExtractionProfiles extractionProfiles;
+
+    private final DownloadProperties downloadProperties;
 
     // Reuse a single ObjectMapper instance for performance.
     private final ObjectMapper objectMapper = new ObjectMapper();
 
-    public HtmlContentParsingService(CustomProperties customProperties) {
-        this.customProperties = customProperties;
+    public HtmlContentParsingService(ExtractionProfiles extractionProfiles, DownloadProperties downloadProperties) {
+        this.extractionProfiles = extractionProfiles;
+        this.downloadProperties = downloadProperties;
+    }
+
+    /**
+     * Reads a page from the given stream and returns the data-content attribute value of its first
+     * <div> element. In streaming mode the page is tokenized as it arrives and reading stops at the
+     * attribute; pages the tokenizer cannot handle are parsed with Jsoup instead.
+     *
+     * @param body    the page body
+     * @param charset the charset of the page
+     * @return the decoded attribute value, or null if not found.
+     */
+    public String extractDataContent(InputStream body, Charset charset) throws IOException {
+        if (downloadProperties.getExtractionMode() == DownloadProperties.ExtractionMode.JSOUP) {
+            return selectDataContent(Jsoup.parse(body, charset.name(), ""));
+        }
+        DataContentScanner scanner = new DataContentScanner(new InputStreamReader(body, charset));
+        try {
+            String dataContent = scanner.scan();
+            if (dataContent != null || !scanner.mayHaveMissedAttribute()) {
+                return dataContent;
+            }
+            log.debug("data-content attribute not tokenized, falling back to Jsoup");
+        } catch (DataContentScanner.MalformedMarkupException e) {
+            if (!scanner.mayHaveMissedAttribute()) {
+                return null;
+            }
+            log.debug("Falling back to Jsoup: {}", e.getMessage());
+        }
+        return selectDataContent(Jsoup.parse(scanner.replay()));
     }
 
     /**
@@ -140,32 +171,28 @@ public class HtmlContentParsingService {
     public List<UrlNode> traverseUrlNodes(JsonNode node, String path) {
         List<UrlNode> urlNodes = new ArrayList<>();
         if (node.isObject()) {
+            ExtractionProfile profile = extractionProfiles.getDefault();
             UrlNode urlNode = new UrlNode();
-            if (node.has(customProperties.getUrl())) {
-                urlNode.setUrl(node.get(customProperties.getUrl()).asText());
+            if (node.has(profile.getUrlField())) {
+                urlNode.setUrl(node.get(profile.getUrlField()).asText());
             }
-            if (node.has(customProperties.getRate())) {
-                JsonNode ratesNode = node.get(customProperties.getRate());
+            if (node.has(profile.getRateField())) {
+                JsonNode ratesNode = node.get(profile.getRateField());
                 // Verify that the value is numeric
                 if (ratesNode.isNumber()) {
                     urlNode.setVote(ratesNode.asInt());
                 }
             }
 
-            if (node.has("date")) {
-                JsonNode dateNode = node.get("date");
+            if (node.has(profile.getDateField())) {
+                JsonNode dateNode = node.get(profile.getDateField());
                 String dateString = dateNode.asText();
                 long epochSeconds = Long.parseLong(dateString);
-                Instant instant = Instant.ofEpochSecond(epochSeconds);
-                LocalDate localDate = LocalDate.ofInstant(instant, ZoneId.systemDefault());
-
-                // 4. Format the LocalDateTime as a readable string.
-                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-                String formattedDate = localDate.format(formatter);
-                urlNode.setFormattedDate(formattedDate);
+                urlNode.setDateEpochSeconds(epochSeconds);
+                urlNode.setFormattedDate(profile.formatDate(epochSeconds));
             }
-            if (node.has("id")) {
-                JsonNode idNode = node.get("id");
+            if (node.has(profile.getItemIdField())) {
+                JsonNode idNode = node.get(profile.getItemIdField());
                 String idString = idNode.asText();
                 urlNode.setId(idString);
             }
@@ -193,8 +220,9 @@ public class HtmlContentParsingService {
         List<UrlDownloadNode> urlDownloadNodes = new ArrayList<>();
         if (node.isObject()) {
             UrlDownloadNode urlDownloadNode = new UrlDownloadNode();
-            if (node.has(customProperties.getId())) {
-                JsonNode binaryIdNode = node.get(customProperties.getId());
+            String idField = extractionProfiles.getDefault().getIdField();
+            if (node.has(idField)) {
+                JsonNode binaryIdNode = node.get(idField);
                 urlDownloadNode.setId(binaryIdNode.asText());
             }
             addUrlDownloadNode(urlDownloadNode, urlDownloadNodes);
@@ -217,9 +245,14 @@ public class HtmlContentParsingService {
         return urlDownloadNodes;
     }
 
+    private static String selectDataContent(Document doc) {
+        Element divElement = doc.selectFirst("div[data-content]");
+        return divElement == null ? null : divElement.attr("data-content");
+    }
+
     private void addUrlNode(UrlNode urlNode, List<UrlNode> urlNodes) {
         if (StringUtils.isNotBlank(urlNode.getUrl())
-                && urlNode.getUrl().contains(customProperties.getExt())
+                && extractionProfiles.getDefault().isItemUrl(urlNode.getUrl())
                 && StringUtils.isNotBlank(urlNode.getId())) {
             urlNodes.add(urlNode);
         }
@@ -232,13 +265,14 @@ public class HtmlContentParsingService {
     }
 
     private UrlNode processNode(JsonNode node) {
+        ExtractionProfile profile = extractionProfiles.getDefault();
         UrlNode urlNode = new UrlNode();
-        JsonNode linkUrlNode = node.findValue(customProperties.getUrl());
+        JsonNode linkUrlNode = node.findValue(profile.getUrlField());
         if (linkUrlNode != null && linkUrlNode.isTextual()) {
             String linkUrl = linkUrlNode.asText();
             urlNode.setUrl(linkUrl);
-            if (linkUrl.contains(customProperties.getExt())) {
-                JsonNode ratesNode = node.get(customProperties.getRate());
+            if (profile.isItemUrl(linkUrl)) {
+                JsonNode ratesNode = node.get(profile.getRateField());
                 int rates = ratesNode != null && ratesNode.isInt() ? ratesNode.asInt() : -1;
                 urlNode.setVote(rates);
             }
@@ -248,7 +282,7 @@ public class HtmlContentParsingService {
 
     private UrlDownloadNode processDownloadNode(JsonNode node) {
         UrlDownloadNode urlDownloadNode = new UrlDownloadNode();
-        JsonNode linkUrlDownloadNode = node.findValue(customProperties.getId());
+        JsonNode linkUrlDownloadNode = node.findValue(extractionProfiles.getDefault().getIdField());
         if (linkUrlDownloadNode != null && linkUrlDownloadNode.isTextual()) {
             String tabDownloadKey = linkUrlDownloadNode.asText();
             urlDownloadNode.setId(tabDownloadKey);
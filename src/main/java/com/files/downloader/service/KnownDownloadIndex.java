@@ -0,0 +1,89 @@
+package com.files.downloader.service;
+
+import com.files.downloader.model.DownloadedFile;
+import com.files.downloader.repository.DownloadedFileRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * In-memory index of what has already been downloaded, keyed by listing item id and by download link.
+ * Warmed from downloaded_files once the application is ready and updated on every save, so skip
+ * decisions do not need a database round trip. Until the warm-up completes, lookups fall back to the
+ * repository.
+ */
+@Component
+@Slf4j
+public class KnownDownloadIndex {
+
+    private final DownloadedFileRepository downloadedFileRepository;
+
+    private final Set<String> sourceIds = ConcurrentHashMap.newKeySet();
+
+    private final Set<String> fileUrls = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean ready;
+
+    public KnownDownloadIndex(DownloadedFileRepository downloadedFileRepository) {
+        this.downloadedFileRepository = downloadedFileRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void warmUp() {
+        long started = System.nanoTime();
+        try (Stream<String> urls = downloadedFileRepository.streamAllFileUrls()) {
+            urls.forEach(fileUrls::add);
+        }
+        try (Stream<String> ids = downloadedFileRepository.streamAllSourceIds()) {
+            ids.forEach(sourceIds::add);
+        }
+        ready = true;
+        log.info("Known download index warmed with {} files in {} ms",
+                fileUrls.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Whether a file was already downloaded for the given listing item id.
+     */
+    public boolean isKnownSource(String sourceId) {
+        if (sourceId == null) {
+            return false;
+        }
+        return sourceIds.contains(sourceId) || (!ready && downloadedFileRepository.existsBySourceId(sourceId));
+    }
+
+    /**
+     * Whether the given download link was already downloaded.
+     */
+    public boolean isKnownFile(String fileUrl) {
+        return fileUrls.contains(fileUrl) || (!ready && downloadedFileRepository.existsByFileUrl(fileUrl));
+    }
+
+    /**
+     * Records a saved download so later lookups see it.
+     */
+    public void record(DownloadedFile downloadedFile) {
+        fileUrls.add(downloadedFile.getFileUrl());
+        if (downloadedFile.getSourceId() != null) {
+            sourceIds.add(downloadedFile.getSourceId());
+        }
+    }
+
+    /**
+     * Removes a download whose record could not be saved, so it is attempted again.
+     */
+    public void forget(DownloadedFile downloadedFile) {
+        fileUrls.remove(downloadedFile.getFileUrl());
+        if (downloadedFile.getSourceId() != null) {
+            sourceIds.remove(downloadedFile.getSourceId());
+        }
+    }
+
+}
@@ -0,0 +1,122 @@
+package com.files.downloader.service;
+
+import com.files.downloader.config.DownloadProperties;
+import com.files.downloader.dto.UrlNode;
+import com.files.downloader.model.PageSnapshot;
+import com.files.downloader.repository.PageSnapshotRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Remembers the validators and item digest of each processed listing page, so unchanged pages can be
+ * skipped with a conditional GET (304) or, when the portal sends no validators, by comparing digests.
+ */
+@Service
+public class PageCacheService {
+
+    private final PageSnapshotRepository pageSnapshotRepository;
+
+    private final DownloadProperties downloadProperties;
+
+    public PageCacheService(PageSnapshotRepository pageSnapshotRepository, DownloadProperties downloadProperties) {
+        this.pageSnapshotRepository = pageSnapshotRepository;
+        this.downloadProperties = downloadProperties;
+    }
+
+    /**
+     * Returns the snapshot of the page, or null if there is none or conditional requests are disabled.
+     */
+    public PageSnapshot find(String pageUrl) {
+        if (!downloadProperties.isConditionalGet()) {
+            return null;
+        }
+        return pageSnapshotRepository.findByPageUrl(pageUrl).orElse(null);
+    }
+
+    /**
+     * Adds If-None-Match / If-Modified-Since for the given snapshot.
+     */
+    public void applyValidators(PageSnapshot snapshot, HttpHeaders headers) {
+        if (snapshot == null) {
+            return;
+        }
+        if (snapshot.getEtag() != null) {
+            headers.set(HttpHeaders.IF_NONE_MATCH, snapshot.getEtag());
+        }
+        if (snapshot.getLastModified() != null) {
+            headers.set(HttpHeaders.IF_MODIFIED_SINCE, snapshot.getLastModified());
+        }
+    }
+
+    /**
+     * Whether the items extracted from the page are the same as in the snapshot.
+     */
+    public boolean isUnchanged(PageSnapshot snapshot, String contentDigest) {
+        return snapshot != null && snapshot.getContentDigest().equals(contentDigest);
+    }
+
+    /**
+     * The listing pages the snapshot's page links to, which a 304 response does not repeat.
+     */
+    public List<String> pageLinks(PageSnapshot snapshot) {
+        if (snapshot == null || snapshot.getPageLinks() == null || snapshot.getPageLinks().isEmpty()) {
+            return List.of();
+        }
+        return List.of(snapshot.getPageLinks().split("\n"));
+    }
+
+    /**
+     * Stores the validators, digest and page links of a processed page. If another job inserts the
+     * snapshot of the same page first, that row is updated instead.
+     */
+    public void record(String pageUrl, String etag, String lastModified, String contentDigest,
+                       List<String> pageLinks) {
+        if (!downloadProperties.isConditionalGet()) {
+            return;
+        }
+        try {
+            save(pageSnapshotRepository.findByPageUrl(pageUrl).orElseGet(() -> new PageSnapshot(pageUrl)),
+                    etag, lastModified, contentDigest, pageLinks);
+        } catch (DataIntegrityViolationException e) {
+            PageSnapshot existing = pageSnapshotRepository.findByPageUrl(pageUrl).orElseThrow(() -> e);
+            save(existing, etag, lastModified, contentDigest, pageLinks);
+        }
+    }
+
+    private void save(PageSnapshot snapshot, String etag, String lastModified, String contentDigest,
+                      List<String> pageLinks) {
+        snapshot.setEtag(etag);
+        snapshot.setLastModified(lastModified);
+        snapshot.setContentDigest(contentDigest);
+        snapshot.setPageLinks(String.join("\n", pageLinks));
+        snapshot.setCheckedAt(LocalDateTime.now());
+        pageSnapshotRepository.save(snapshot);
+    }
+
+    /**
+     * SHA-256 over the identifying fields of the given url nodes, in order.
+     */
+    public String digest(List<UrlNode> urlNodes) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (UrlNode urlNode : urlNodes) {
+                String line = urlNode.getId() + '\t' + urlNode.getUrl() + '\t' + urlNode.getVote() + '\t'
+                        + Objects.toString(urlNode.getFormattedDate(), "") + '\n';
+                digest.update(line.getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+}
@@ -2,25 +2,116 @@ package com.files.downloader.service;
 
 import com.files.downloader.config.CustomProperties;
 import com.files.downloader.config.PortalProperties;
+import com.files.downloader.dto.PortalSession;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.net.HttpCookie;
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Service
+@Slf4j
 public class PortalAuthService {
 
     private final PortalProperties portalProperties;
     private final CustomProperties customProperties;
     private final RestTemplate restTemplate;
+    private final DownloadMetrics downloadMetrics;
 
-    public PortalAuthService(PortalProperties portalProperties, CustomProperties customProperties) {
+    private final AtomicReference<PortalSession> session = new AtomicReference<>();
+
+    // Guards inFlightLogin; a lock instead of synchronized so virtual threads are not pinned.
+    private final ReentrantLock loginLock = new ReentrantLock();
+    private CompletableFuture<PortalSession> inFlightLogin;
+
+    public PortalAuthService(PortalProperties portalProperties,
+                             CustomProperties customProperties,
+                             RestTemplate portalRestTemplate,
+                             DownloadMetrics downloadMetrics) {
         this.portalProperties = portalProperties;
         this.customProperties = customProperties;
-        this.restTemplate = new RestTemplate();
+        this.restTemplate = portalRestTemplate;
+        this.downloadMetrics = downloadMetrics;
+    }
+
+    /**
+     * Returns the cookie of the cached portal session, logging in first if there is no valid session.
+     * Concurrent callers share a single in-flight login.
+     *
+     * @return the Cookie header value, or null if the login failed
+     */
+    public String getSessionCookie() {
+        PortalSession current = session.get();
+        if (current != null && current.isValidAt(Instant.now())) {
+            return current.getCookie();
+        }
+        PortalSession refreshed = refresh();
+        return refreshed == null ? null : refreshed.getCookie();
+    }
+
+    /**
+     * Drops the cached session if it still carries the given cookie, so the next caller logs in again.
+     */
+    public void invalidate(String sessionCookie) {
+        PortalSession current = session.get();
+        if (current != null && current.getCookie().equals(sessionCookie)) {
+            session.compareAndSet(current, null);
+        }
+    }
+
+    /**
+     * Runs a portal request with the cached session. If the portal rejects the session (401 or a
+     * redirect to the login page), the session is refreshed once and the request is retried.
+     *
+     * @param call the request, receiving the Cookie header value
+     * @return the result of the call
+     */
+    public <T> T withSession(SessionCall<T> call) throws IOException, InterruptedException {
+        String sessionCookie = getSessionCookie();
+        if (sessionCookie == null) {
+            throw new PortalSessionExpiredException("Failed to log in to the portal.");
+        }
+        try {
+            return call.apply(sessionCookie);
+        } catch (HttpClientErrorException.Unauthorized | PortalSessionExpiredException e) {
+            log.info("Portal session rejected, logging in again");
+            invalidate(sessionCookie);
+            String refreshedCookie = getSessionCookie();
+            if (refreshedCookie == null) {
+                throw new PortalSessionExpiredException("Failed to log in to the portal.");
+            }
+            return call.apply(refreshedCookie);
+        }
+    }
+
+    /**
+     * Checks whether a response is the portal bouncing an unauthenticated request back to its login page.
+     */
+    public boolean isLoginRedirect(HttpStatusCode status, HttpHeaders headers) {
+        if (status.value() == HttpStatus.UNAUTHORIZED.value()) {
+            return true;
+        }
+        URI location = headers.getLocation();
+        if (!status.is3xxRedirection() || location == null) {
+            return false;
+        }
+        String loginPath = URI.create(portalProperties.getLoginUrl()).getPath();
+        return loginPath != null && !loginPath.isEmpty() && loginPath.equals(location.getPath());
     }
 
     /**
@@ -28,6 +119,64 @@ public class PortalAuthService {
      * Adjust the parameter names ("username", "password") as required by your portal.
      */
     public String loginAndGetSessionCookie() {
+        PortalSession loggedIn = login();
+        return loggedIn == null ? null : loggedIn.getCookie();
+    }
+
+    private PortalSession refresh() {
+        CompletableFuture<PortalSession> login;
+        boolean owner = false;
+        loginLock.lock();
+        try {
+            PortalSession current = session.get();
+            if (current != null && current.isValidAt(Instant.now())) {
+                return current;
+            }
+            if (inFlightLogin == null) {
+                inFlightLogin = new CompletableFuture<>();
+                owner = true;
+            }
+            login = inFlightLogin;
+        } finally {
+            loginLock.unlock();
+        }
+
+        if (owner) {
+            try {
+                PortalSession loggedIn = login();
+                session.set(loggedIn);
+                login.complete(loggedIn);
+            } catch (RuntimeException e) {
+                login.completeExceptionally(e);
+                throw e;
+            } finally {
+                loginLock.lock();
+                try {
+                    inFlightLogin = null;
+                } finally {
+                    loginLock.unlock();
+                }
+            }
+        }
+        try {
+            return login.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private PortalSession login() {
+        Timer.Sample sample = downloadMetrics.start();
+        PortalSession loggedIn = null;
+        try {
+            loggedIn = postLogin();
+            return loggedIn;
+        } finally {
+            downloadMetrics.login(sample, loggedIn != null);
+        }
+    }
+
+    private PortalSession postLogin() {
         String loginUrl = portalProperties.getLoginUrl();
 
         MultiValueMap<String, String> formData = new LinkedMultiValueMap<>();
@@ -39,11 +188,40 @@ public class PortalAuthService {
         HttpEntity<MultiValueMap<String, String>> requestEntity = new HttpEntity<>(formData, headers);
 
         ResponseEntity<String> response = restTemplate.postForEntity(loginUrl, requestEntity, String.class);
-        List<String> cookies = response.getHeaders().get(HttpHeaders.SET_COOKIE);
-        if (cookies != null && !cookies.isEmpty()) {
-            // Join the cookies by semicolon for reuse in subsequent requests.
-            return String.join("; ", cookies);
+        List<String> setCookies = response.getHeaders().get(HttpHeaders.SET_COOKIE);
+        if (setCookies == null || setCookies.isEmpty()) {
+            return null;
         }
-        return null;
+        Instant now = Instant.now();
+        Instant expiresAt = now.plus(portalProperties.getSessionTtl());
+        List<String> cookies = new ArrayList<>(setCookies.size());
+        for (String setCookie : setCookies) {
+            try {
+                for (HttpCookie cookie : HttpCookie.parse(setCookie)) {
+                    cookies.add(cookie.getName() + "=" + cookie.getValue());
+                    // The earliest cookie expiry bounds the session lifetime.
+                    if (cookie.getMaxAge() >= 0) {
+                        Instant cookieExpiry = now.plus(Duration.ofSeconds(cookie.getMaxAge()));
+                        if (cookieExpiry.isBefore(expiresAt)) {
+                            expiresAt = cookieExpiry;
+                        }
+                    }
+                }
+            } catch (IllegalArgumentException e) {
+                int attributes = setCookie.indexOf(';');
+                cookies.add(attributes < 0 ? setCookie : setCookie.substring(0, attributes));
+            }
+        }
+        log.info("Logged in to the portal, session valid until {}", expiresAt);
+        // Join the cookies by semicolon for reuse in subsequent requests.
+        return new PortalSession(String.join("; ", cookies), expiresAt);
+    }
+
+    /**
+     * A portal request executed with a session cookie.
+     */
+    @FunctionalInterface
+    public interface SessionCall<T> {
+        T apply(String sessionCookie) throws IOException, InterruptedException;
     }
 }
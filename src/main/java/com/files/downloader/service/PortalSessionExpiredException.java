@@ -0,0 +1,14 @@
+package com.files.downloader.service;
+
+/**
+ * Thrown when the portal rejects the current session, e.g. by redirecting to the login page.
+ */
+public class PortalSessionExpiredException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public PortalSessionExpiredException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,67 @@
+package com.files.downloader.service;
+
+import com.files.downloader.config.DownloadProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Registers one incremental sync job per entry of {@code download.sync.pages}, on its cron expression or
+ * fixed interval. A sync is skipped while the previous sync of the same page is still running.
+ */
+@Service
+@Slf4j
+public class ScheduledSyncService implements SchedulingConfigurer {
+
+    public static final String JOB_NAME_PREFIX = "sync:";
+
+    private final DownloadProperties downloadProperties;
+
+    private final DownloadJobService downloadJobService;
+
+    private final Map<String, DownloadJob> lastJobs = new ConcurrentHashMap<>();
+
+    public ScheduledSyncService(DownloadProperties downloadProperties, DownloadJobService downloadJobService) {
+        this.downloadProperties = downloadProperties;
+        this.downloadJobService = downloadJobService;
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        for (DownloadProperties.SyncPage syncPage : downloadProperties.getSync().getPages()) {
+            Runnable sync = () -> sync(syncPage);
+            if (StringUtils.isNotBlank(syncPage.getCron())) {
+                registrar.addCronTask(sync, syncPage.getCron());
+            } else if (syncPage.getInterval() != null) {
+                registrar.addFixedDelayTask(sync, syncPage.getInterval());
+            } else {
+                throw new IllegalStateException("Sync of page '" + syncPage.getPage() + "' needs a cron or an interval");
+            }
+            log.info("Scheduled incremental sync of page '{}'", syncPage.getPage());
+        }
+    }
+
+    private void sync(DownloadProperties.SyncPage syncPage) {
+        String page = syncPage.getPage();
+        DownloadJob last = lastJobs.get(page);
+        if (last != null && !last.isFinished()) {
+            log.info("Previous sync of page '{}' is still running, skipping", page);
+            return;
+        }
+        List<String> pageNames = StringUtils.isBlank(page) ? List.of() : List.of(page);
+        try {
+            lastJobs.put(page, downloadJobService.submit(
+                    new DownloadJob(JOB_NAME_PREFIX + page, pageNames, syncPage.isFollowPagination(), true)));
+        } catch (RejectedExecutionException e) {
+            log.warn("Job queue full, skipping this sync of page '{}'", page);
+        }
+    }
+
+}
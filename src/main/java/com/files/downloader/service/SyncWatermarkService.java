@@ -0,0 +1,50 @@
+package com.files.downloader.service;
+
+import com.files.downloader.model.SyncWatermark;
+import com.files.downloader.repository.SyncWatermarkRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Reads and advances the per-page date watermarks of incremental syncs.
+ */
+@Service
+@Slf4j
+public class SyncWatermarkService {
+
+    private final SyncWatermarkRepository syncWatermarkRepository;
+
+    public SyncWatermarkService(SyncWatermarkRepository syncWatermarkRepository) {
+        this.syncWatermarkRepository = syncWatermarkRepository;
+    }
+
+    /**
+     * Returns the watermark of the page in epoch seconds, or null if the page was never fully synced.
+     */
+    @Transactional(readOnly = true)
+    public Long find(String pageUrl) {
+        return syncWatermarkRepository.findByPageUrl(pageUrl)
+                .map(SyncWatermark::getWatermarkEpochSeconds)
+                .orElse(null);
+    }
+
+    /**
+     * Moves the watermark of the page forward to the given item date. It never moves back.
+     */
+    @Transactional
+    public void advance(String pageUrl, long epochSeconds) {
+        SyncWatermark watermark = syncWatermarkRepository.findByPageUrl(pageUrl)
+                .orElseGet(() -> new SyncWatermark(pageUrl));
+        if (watermark.getId() != null && watermark.getWatermarkEpochSeconds() >= epochSeconds) {
+            return;
+        }
+        watermark.setWatermarkEpochSeconds(epochSeconds);
+        watermark.setUpdatedAt(LocalDateTime.now());
+        syncWatermarkRepository.save(watermark);
+        log.info("Advanced the sync watermark of {} to {}", pageUrl, epochSeconds);
+    }
+
+}
@@ -0,0 +1,285 @@
+package com.files.downloader.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.files.downloader.dto.UrlDownloadNode;
+import com.files.downloader.dto.UrlNode;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Single-pass extraction of {@link UrlNode} and {@link UrlDownloadNode} records from data-content JSON,
+ * reading tokens with a {@link JsonParser} instead of materializing a JsonNode tree.
+ * <p>
+ * Produces the same records, in the same order, as {@link HtmlContentParsingService#filterAndDisplayUrl}
+ * and {@link HtmlContentParsingService#filterUrlDownloadNode}, with duplicate url nodes removed. Field names
+ * and date formatting come from an {@link ExtractionProfile}, the default one unless a page selects another.
+ */
+@Component
+@Slf4j
+public class UrlNodeJsonExtractor {
+
+    private final ExtractionProfiles extractionProfiles;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    public UrlNodeJsonExtractor(ExtractionProfiles extractionProfiles) {
+        this.extractionProfiles = extractionProfiles;
+    }
+
+    /**
+     * Extracts the url nodes of every JSON object carrying a matching url and an id, in document
+     * (pre-)order, without duplicates.
+     *
+     * @param json the data-content JSON
+     * @return the distinct url nodes; empty if the JSON is null
+     */
+    public List<UrlNode> extractUrlNodes(String json) throws IOException {
+        return extractUrlNodes(json, null);
+    }
+
+    /**
+     * Extracts the url nodes like {@link #extractUrlNodes(String)} and, in the same pass, collects the
+     * non-blank values of every {@code custom.next-page} field into {@code pageLinks}, in document order.
+     *
+     * @param json      the data-content JSON
+     * @param pageLinks receives the pagination links; may be null
+     * @return the distinct url nodes; empty if the JSON is null
+     */
+    public List<UrlNode> extractUrlNodes(String json, List<String> pageLinks) throws IOException {
+        return extractUrlNodes(json, pageLinks, extractionProfiles.getDefault());
+    }
+
+    /**
+     * Extracts the url nodes and pagination links like {@link #extractUrlNodes(String, List)}, reading the
+     * JSON with the given profile.
+     */
+    public List<UrlNode> extractUrlNodes(String json, List<String> pageLinks, ExtractionProfile profile)
+            throws IOException {
+        if (json == null) {
+            log.info("No JSON to process.");
+            return new ArrayList<>();
+        }
+        String pageLinkField = pageLinks != null ? profile.getNextPageField() : null;
+
+        // Objects complete in post-order; remember each node's pre-order position to restore document order.
+        Map<UrlNode, Integer> positions = new HashMap<>();
+        Deque<UrlNodeFrame> frames = new ArrayDeque<>();
+        int objectIndex = 0;
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                switch (token) {
+                    case START_OBJECT -> {
+                        clearField(frames.peek(), parser.currentName(), profile);
+                        frames.push(new UrlNodeFrame(objectIndex++));
+                    }
+                    case START_ARRAY -> clearField(frames.peek(), parser.currentName(), profile);
+                    case END_OBJECT -> {
+                        UrlNodeFrame frame = frames.pop();
+                        UrlNode urlNode = frame.urlNode;
+                        if (StringUtils.isNotBlank(urlNode.getUrl())
+                                && profile.isItemUrl(urlNode.getUrl())
+                                && StringUtils.isNotBlank(urlNode.getId())) {
+                            positions.merge(urlNode, frame.index, Math::min);
+                        }
+                    }
+                    case FIELD_NAME, END_ARRAY, NOT_AVAILABLE -> {
+                        // Structure only.
+                    }
+                    default -> {
+                        UrlNodeFrame frame = frames.peek();
+                        String name = parser.currentName();
+                        if (frame == null || name == null) {
+                            continue;
+                        }
+                        if (name.equals(pageLinkField) && token == JsonToken.VALUE_STRING
+                                && StringUtils.isNotBlank(parser.getText())) {
+                            pageLinks.add(parser.getText());
+                        }
+                        UrlNode urlNode = frame.urlNode;
+                        if (name.equals(profile.getUrlField())) {
+                            urlNode.setUrl(parser.getText());
+                        }
+                        if (name.equals(profile.getRateField())) {
+                            urlNode.setVote(token.isNumeric() ? parser.getValueAsInt() : 0);
+                        }
+                        if (name.equals(profile.getDateField())) {
+                            Long epochSeconds = parseEpochSeconds(parser.getText());
+                            urlNode.setDateEpochSeconds(epochSeconds);
+                            urlNode.setFormattedDate(epochSeconds == null ? null : profile.formatDate(epochSeconds));
+                        }
+                        if (name.equals(profile.getItemIdField())) {
+                            urlNode.setId(parser.getText());
+                        }
+                    }
+                }
+            }
+        }
+        List<Map.Entry<UrlNode, Integer>> ordered = new ArrayList<>(positions.entrySet());
+        ordered.sort(Map.Entry.comparingByValue(Comparator.naturalOrder()));
+        List<UrlNode> urlNodes = new ArrayList<>(ordered.size());
+        for (Map.Entry<UrlNode, Integer> entry : ordered) {
+            urlNodes.add(entry.getKey());
+        }
+        return urlNodes;
+    }
+
+    /**
+     * Extracts the download node: the id field found by {@code findValue} on the root (an object's own
+     * field wins over its children), or for a top-level array the first element whose {@code findValue}
+     * result is textual; otherwise the id of the first object (in pre-order) that has a non-blank one.
+     *
+     * @param json the data-content JSON of a detail page
+     * @return the download node, or null if there is none
+     */
+    public UrlDownloadNode extractUrlDownloadNode(String json) throws IOException {
+        return extractUrlDownloadNode(json, extractionProfiles.getDefault());
+    }
+
+    /**
+     * Extracts the download node like {@link #extractUrlDownloadNode(String)}, reading the JSON with the
+     * given profile.
+     */
+    public UrlDownloadNode extractUrlDownloadNode(String json, ExtractionProfile profile) throws IOException {
+        if (json == null) {
+            log.info("No JSON to process.");
+            return null;
+        }
+        String idField = profile.getIdField();
+
+        Deque<DownloadFrame> frames = new ArrayDeque<>();
+        int objectIndex = 0;
+        String fallbackId = null;
+        int fallbackIndex = Integer.MAX_VALUE;
+
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                DownloadFrame parent = frames.peek();
+                if (token.isStructStart() || token.isScalarValue()) {
+                    if (parent != null && parent.object && idField.equals(parser.currentName())) {
+                        // The parent's own id value; containers are non-textual and read as "".
+                        boolean textual = token == JsonToken.VALUE_STRING;
+                        parent.own = new IdValue(textual, token.isScalarValue() ? parser.getText() : "");
+                    }
+                    if (token.isStructStart()) {
+                        boolean object = token == JsonToken.START_OBJECT;
+                        frames.push(new DownloadFrame(object, object ? objectIndex++ : -1));
+                    }
+                    continue;
+                }
+                if (!token.isStructEnd()) {
+                    continue;
+                }
+
+                DownloadFrame frame = frames.pop();
+                IdValue found = frame.own != null ? frame.own : frame.firstChild;
+                if (frame.object && frame.own != null && StringUtils.isNotBlank(frame.own.text)
+                        && frame.index < fallbackIndex) {
+                    fallbackIndex = frame.index;
+                    fallbackId = frame.own.text;
+                }
+                DownloadFrame enclosing = frames.peek();
+                if (enclosing == null) {
+                    // The root completed; a root array was already handled element by element.
+                    if (frame.object && found != null && found.isUsable()) {
+                        return downloadNode(found.text);
+                    }
+                    break;
+                }
+                if (enclosing.firstChild == null) {
+                    enclosing.firstChild = found;
+                }
+                if (!enclosing.object && frames.size() == 1 && found != null && found.isUsable()) {
+                    // First element of a top-level array with a textual id.
+                    return downloadNode(found.text);
+                }
+            }
+        }
+        return fallbackId == null ? null : downloadNode(fallbackId);
+    }
+
+    /**
+     * A container value replaces any earlier scalar value of the same field, as in a JsonNode tree.
+     */
+    private static void clearField(UrlNodeFrame frame, String name, ExtractionProfile profile) {
+        if (frame == null || name == null) {
+            return;
+        }
+        if (name.equals(profile.getUrlField())) {
+            frame.urlNode.setUrl("");
+        }
+        if (name.equals(profile.getRateField())) {
+            frame.urlNode.setVote(0);
+        }
+        if (name.equals(profile.getDateField())) {
+            frame.urlNode.setFormattedDate(null);
+            frame.urlNode.setDateEpochSeconds(null);
+        }
+        if (name.equals(profile.getItemIdField())) {
+            frame.urlNode.setId("");
+        }
+    }
+
+    private static Long parseEpochSeconds(String dateString) {
+        try {
+            return Long.parseLong(dateString);
+        } catch (NumberFormatException e) {
+            log.debug("Ignoring non-numeric date: {}", dateString);
+            return null;
+        }
+    }
+
+    private static UrlDownloadNode downloadNode(String id) {
+        UrlDownloadNode urlDownloadNode = new UrlDownloadNode();
+        urlDownloadNode.setId(id);
+        return urlDownloadNode;
+    }
+
+    private static final class UrlNodeFrame {
+
+        private final int index;
+
+        private final UrlNode urlNode = new UrlNode();
+
+        private UrlNodeFrame(int index) {
+            this.index = index;
+        }
+    }
+
+    private static final class DownloadFrame {
+
+        private final boolean object;
+
+        private final int index;
+
+        private IdValue own;
+
+        private IdValue firstChild;
+
+        private DownloadFrame(boolean object, int index) {
+            this.object = object;
+            this.index = index;
+        }
+    }
+
+    private record IdValue(boolean textual, String text) {
+
+        private boolean isUsable() {
+            return textual && StringUtils.isNotBlank(text);
+        }
+    }
+
+}
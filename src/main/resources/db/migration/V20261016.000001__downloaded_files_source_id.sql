@@ -0,0 +1,3 @@
+ALTER TABLE downloaded_files ADD COLUMN IF NOT EXISTS source_id VARCHAR(255);
+
+CREATE INDEX IF NOT EXISTS idx_downloaded_files_source_id ON downloaded_files (source_id);
@@ -0,0 +1,2 @@
+-- Match the pooled optimizer of DownloadedFile (allocationSize = 50): one nextval reserves 50 ids.
+ALTER SEQUENCE RD_UNIQUE_ID INCREMENT BY 50;
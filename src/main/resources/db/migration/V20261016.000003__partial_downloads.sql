@@ -0,0 +1,10 @@
+CREATE TABLE IF NOT EXISTS partial_downloads (
+    id BIGINT NOT NULL PRIMARY KEY,
+    file_url VARCHAR(512) NOT NULL UNIQUE,
+    part_path VARCHAR(512) NOT NULL,
+    etag VARCHAR(255),
+    last_modified VARCHAR(64),
+    expected_length BIGINT,
+    downloaded_bytes BIGINT NOT NULL,
+    updated_at TIMESTAMP NOT NULL
+);
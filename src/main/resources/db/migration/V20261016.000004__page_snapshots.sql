@@ -0,0 +1,8 @@
+CREATE TABLE IF NOT EXISTS page_snapshots (
+    id BIGINT NOT NULL PRIMARY KEY,
+    page_url VARCHAR(1024) NOT NULL UNIQUE,
+    etag VARCHAR(255),
+    last_modified VARCHAR(64),
+    content_digest VARCHAR(64) NOT NULL,
+    checked_at TIMESTAMP NOT NULL
+);
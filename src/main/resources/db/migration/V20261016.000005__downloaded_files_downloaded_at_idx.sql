@@ -0,0 +1,2 @@
+-- Keyset pagination of GET /api/downloaded-files orders and seeks on (downloaded_at, id).
+CREATE INDEX IF NOT EXISTS idx_downloaded_files_downloaded_at_id ON downloaded_files (downloaded_at, id);
@@ -0,0 +1,6 @@
+CREATE TABLE IF NOT EXISTS sync_watermarks (
+    id BIGINT NOT NULL PRIMARY KEY,
+    page_url VARCHAR(1024) NOT NULL UNIQUE,
+    watermark_epoch_seconds BIGINT NOT NULL,
+    updated_at TIMESTAMP NOT NULL
+);
@@ -0,0 +1,6 @@
+ALTER TABLE downloaded_files ADD COLUMN IF NOT EXISTS content_sha256 VARCHAR(64);
+ALTER TABLE downloaded_files ADD COLUMN IF NOT EXISTS content_length BIGINT;
+ALTER TABLE downloaded_files ADD COLUMN IF NOT EXISTS etag VARCHAR(255);
+
+CREATE INDEX IF NOT EXISTS idx_downloaded_files_content_sha256 ON downloaded_files (content_sha256);
+CREATE INDEX IF NOT EXISTS idx_downloaded_files_etag ON downloaded_files (etag, content_length);
@@ -0,0 +1,15 @@
+CREATE TABLE IF NOT EXISTS failed_downloads (
+    id BIGINT NOT NULL PRIMARY KEY,
+    download_id VARCHAR(255) NOT NULL,
+    file_url VARCHAR(512) NOT NULL UNIQUE,
+    file_name VARCHAR(512) NOT NULL,
+    source_id VARCHAR(255),
+    status VARCHAR(16) NOT NULL,
+    attempts INT NOT NULL,
+    next_attempt_at TIMESTAMP NOT NULL,
+    last_error VARCHAR(1024),
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS failed_downloads_due_idx ON failed_downloads (status, next_attempt_at);
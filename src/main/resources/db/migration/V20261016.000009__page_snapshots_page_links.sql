@@ -0,0 +1,4 @@
+ALTER TABLE page_snapshots ADD COLUMN IF NOT EXISTS page_links TEXT;
+
+-- Snapshots without their page links must be fetched in full once, so a 304 does not end pagination.
+UPDATE page_snapshots SET etag = NULL, last_modified = NULL WHERE page_links IS NULL;
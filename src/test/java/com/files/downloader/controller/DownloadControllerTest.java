@@ -0,0 +1,181 @@
+package com.files.downloader.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.files.downloader.config.DownloadProperties;
+import com.files.downloader.dto.DownloadResponseDTO;
+import com.files.downloader.repository.DownloadedFileRepository;
+import com.files.downloader.service.DownloadJobService;
+import com.files.downloader.service.DownloadedFileExportService;
+import com.files.downloader.service.DownloadedFileQueryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class DownloadControllerTest {
+
+    private static final LocalDateTime DOWNLOADED_AT = LocalDateTime.of(2026, 10, 16, 12, 0);
+
+    private final DownloadedFileRepository downloadedFileRepository = mock(DownloadedFileRepository.class);
+
+    private final DownloadedFileQueryService downloadedFileQueryService =
+            new DownloadedFileQueryService(downloadedFileRepository);
+
+    private MockMvc mockMvc;
+
+    @TempDir
+    private Path dir;
+
+    @BeforeEach
+    void createController() {
+        DownloadProperties downloadProperties = new DownloadProperties();
+        downloadProperties.setDir(dir.toString());
+        mockMvc = MockMvcBuilders.standaloneSetup(new DownloadController(mock(DownloadJobService.class),
+                downloadedFileQueryService, new DownloadedFileExportService(downloadedFileQueryService,
+                downloadProperties), new ObjectMapper())).build();
+    }
+
+    @Test
+    void linksTheNextPageOfAFullPage() throws Exception {
+        when(downloadedFileRepository.findPageAfter(any(), any(), any(), anyLong(), any(Pageable.class)))
+                .thenReturn(files(1, 3));
+
+        String link = mockMvc.perform(get("/api/downloaded-files?from=2026-10-01T00:00:00&limit=3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andReturn().getResponse().getHeader(HttpHeaders.LINK);
+
+        assertThat(link).startsWith("<http://localhost/api/downloaded-files?").endsWith(">; rel=\"next\"");
+        String next = link.substring(1, link.indexOf('>'));
+        MultiValueMap<String, String> query = UriComponentsBuilder.fromUriString(next).build().getQueryParams();
+        assertThat(query.getFirst("from")).isEqualTo("2026-10-01T00:00:00");
+        assertThat(query.getFirst("limit")).isEqualTo("3");
+        assertThat(query.getFirst("cursor"))
+                .isEqualTo(downloadedFileQueryService.cursorAfter(files(1, 3).getLast()));
+
+        // Following the link continues after the last record of the page.
+        when(downloadedFileRepository.findPageAfter(any(), any(), eq(DOWNLOADED_AT.plusSeconds(3)), eq(3L),
+                any(Pageable.class))).thenReturn(files(4, 4));
+        mockMvc.perform(get(next))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(4))
+                .andExpect(header().doesNotExist(HttpHeaders.LINK));
+    }
+
+    @Test
+    void doesNotLinkAfterTheLastPage() throws Exception {
+        when(downloadedFileRepository.findPageAfter(any(), any(), any(), anyLong(), any(Pageable.class)))
+                .thenReturn(files(1, 2));
+
+        mockMvc.perform(get("/api/downloaded-files?limit=3"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.LINK));
+    }
+
+    @Test
+    void rejectsAnInvalidCursor() throws Exception {
+        mockMvc.perform(get("/api/downloaded-files?cursor=not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void exportsTheRecordsOfTheGivenIdsInTheirOrder() throws Exception {
+        when(downloadedFileRepository.findAllByIdIn(List.of(3L, 1L, 99L))).thenReturn(stored(1, 3));
+
+        assertThat(export("/api/downloaded-files/export?ids=3,1,99")).containsExactly("3.txt", "1.txt");
+    }
+
+    @Test
+    void exportsOnePageWhenALimitIsGiven() throws Exception {
+        when(downloadedFileRepository.findPageAfter(any(), any(), any(), anyLong(), any(Pageable.class)))
+                .thenReturn(stored(1, 2));
+
+        assertThat(export("/api/downloaded-files/export?limit=2")).containsExactly("1.txt", "2.txt");
+        verify(downloadedFileRepository).findPageAfter(any(), any(), any(), eq(0L), eq(PageRequest.ofSize(2)));
+    }
+
+    @Test
+    void exportsTheDateRange() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2026, 10, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2026, 11, 1, 0, 0);
+        when(downloadedFileRepository.findPageAfter(eq(from), eq(to), eq(from), eq(0L), any(Pageable.class)))
+                .thenReturn(stored(1, 3));
+
+        assertThat(export("/api/downloaded-files/export?from=2026-10-01T00:00:00&to=2026-11-01T00:00:00"))
+                .containsExactly("1.txt", "2.txt", "3.txt");
+    }
+
+    /**
+     * The entry names of the ZIP archive the export responds with.
+     */
+    private List<String> export(String url) throws Exception {
+        MvcResult started = mockMvc.perform(get(url))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        byte[] archive = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "application/zip"))
+                .andReturn().getResponse().getContentAsByteArray();
+        List<String> names = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                names.add(entry.getName());
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Records of files written to the download directory, named after their ids.
+     */
+    private List<DownloadResponseDTO> stored(long firstId, long lastId) throws IOException {
+        List<DownloadResponseDTO> files = new ArrayList<>();
+        for (DownloadResponseDTO file : files(firstId, lastId)) {
+            Path path = Files.writeString(dir.resolve(file.getId() + ".txt"), "file " + file.getId());
+            file.setLocalPath(path.toString());
+            files.add(file);
+        }
+        return files;
+    }
+
+    private static List<DownloadResponseDTO> files(long firstId, long lastId) {
+        return LongStream.rangeClosed(firstId, lastId)
+                .mapToObj(id -> new DownloadResponseDTO(id, "https://portal.example.com/download?id=" + id,
+                        "/tmp/" + id, DOWNLOADED_AT.plusSeconds(id)))
+                .toList();
+    }
+
+}
@@ -0,0 +1,146 @@
+package com.files.downloader.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.files.downloader.model.DownloadedFile;
+import com.files.downloader.repository.DownloadedFileRepository;
+import com.files.downloader.service.DownloadJobService;
+import com.files.downloader.service.DownloadedFileExportService;
+import com.files.downloader.service.DownloadedFileQueryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Serves a stored file through {@code GET /api/downloaded-files/{id}/content}.
+ */
+class FileContentResponderTest {
+
+    private static final String SHA256 = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+
+    private static final String ETAG = "\"" + SHA256 + "\"";
+
+    private static final String CONTENT = "/api/downloaded-files/{id}/content";
+
+    private final DownloadedFileRepository downloadedFileRepository = mock(DownloadedFileRepository.class);
+
+    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new DownloadController(
+            mock(DownloadJobService.class), new DownloadedFileQueryService(downloadedFileRepository),
+            mock(DownloadedFileExportService.class), new ObjectMapper())).build();
+
+    private final byte[] bytes = new byte[100];
+
+    @TempDir
+    private Path dir;
+
+    @BeforeEach
+    void storeFile() throws Exception {
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        Path file = Files.write(dir.resolve("report.bin"), bytes);
+        DownloadedFile downloadedFile = new DownloadedFile("https://portal.example.com/download?id=1",
+                file.toString(), LocalDateTime.now());
+        downloadedFile.setContentSha256(SHA256);
+        when(downloadedFileRepository.findById(1L)).thenReturn(Optional.of(downloadedFile));
+    }
+
+    @Test
+    void servesTheWholeFile() throws Exception {
+        mockMvc.perform(get(CONTENT, 1))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 100))
+                .andExpect(content().bytes(bytes));
+    }
+
+    @Test
+    void servesAClosedRange() throws Exception {
+        mockMvc.perform(get(CONTENT, 1).header(HttpHeaders.RANGE, "bytes=0-9"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 0-9/100"))
+                .andExpect(content().bytes(Arrays.copyOfRange(bytes, 0, 10)));
+    }
+
+    @Test
+    void servesASuffixRange() throws Exception {
+        mockMvc.perform(get(CONTENT, 1).header(HttpHeaders.RANGE, "bytes=-10"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 90-99/100"))
+                .andExpect(content().bytes(Arrays.copyOfRange(bytes, 90, 100)));
+    }
+
+    @Test
+    void servesAnOpenRange() throws Exception {
+        mockMvc.perform(get(CONTENT, 1).header(HttpHeaders.RANGE, "bytes=10-"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 10-99/100"))
+                .andExpect(content().bytes(Arrays.copyOfRange(bytes, 10, 100)));
+    }
+
+    @Test
+    void rejectsAnUnsatisfiableRange() throws Exception {
+        mockMvc.perform(get(CONTENT, 1).header(HttpHeaders.RANGE, "bytes=100-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */100"))
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void servesTheWholeFileForAStaleIfRange() throws Exception {
+        mockMvc.perform(get(CONTENT, 1)
+                        .header(HttpHeaders.RANGE, "bytes=0-9")
+                        .header(HttpHeaders.IF_RANGE, "\"an-earlier-version\""))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_RANGE))
+                .andExpect(content().bytes(bytes));
+    }
+
+    @Test
+    void servesTheRangeForACurrentIfRange() throws Exception {
+        mockMvc.perform(get(CONTENT, 1)
+                        .header(HttpHeaders.RANGE, "bytes=0-9")
+                        .header(HttpHeaders.IF_RANGE, ETAG))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().bytes(Arrays.copyOfRange(bytes, 0, 10)));
+    }
+
+    @Test
+    void answersAMatchingIfNoneMatchWithNotModified() throws Exception {
+        mockMvc.perform(get(CONTENT, 1).header(HttpHeaders.IF_NONE_MATCH, ETAG))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void answersNotFoundWhenTheFileIsGone() throws Exception {
+        Files.delete(dir.resolve("report.bin"));
+
+        mockMvc.perform(get(CONTENT, 1))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void answersNotFoundForAnUnknownRecord() throws Exception {
+        mockMvc.perform(get(CONTENT, 2))
+                .andExpect(status().isNotFound());
+    }
+
+}
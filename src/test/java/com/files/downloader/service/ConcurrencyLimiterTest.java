@@ -0,0 +1,50 @@
+package com.files.downloader.service;
+
+import com.files.downloader.config.DownloadProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+class ConcurrencyLimiterTest {
+
+    @Test
+    void acceptsTheDefaults() {
+        assertThatCode(() -> new ConcurrencyLimiter(new DownloadProperties(), new SimpleMeterRegistry()))
+                .doesNotThrowAnyException();
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "0, 8, 64, 0.5",
+            "9, 8, 64, 0.5",
+            "1, 8, 4, 0.5",
+            "1, 8, 64, 0",
+            "1, 8, 64, 1",
+            "1, 8, 64, 1.5"
+    })
+    void rejectsInconsistentAdaptiveLimits(int minLimit, int initial, int maxLimit, double backoffRatio) {
+        DownloadProperties downloadProperties = new DownloadProperties();
+        downloadProperties.setMaxConcurrencyPerHost(initial);
+        downloadProperties.getAdaptiveConcurrency().setMinLimit(minLimit);
+        downloadProperties.getAdaptiveConcurrency().setMaxLimit(maxLimit);
+        downloadProperties.getAdaptiveConcurrency().setBackoffRatio(backoffRatio);
+
+        assertThatIllegalStateException()
+                .isThrownBy(() -> new ConcurrencyLimiter(downloadProperties, new SimpleMeterRegistry()));
+    }
+
+    @Test
+    void ignoresTheAdaptiveLimitsWhenDisabled() {
+        DownloadProperties downloadProperties = new DownloadProperties();
+        downloadProperties.getAdaptiveConcurrency().setEnabled(false);
+        downloadProperties.getAdaptiveConcurrency().setMaxLimit(1);
+
+        assertThatCode(() -> new ConcurrencyLimiter(downloadProperties, new SimpleMeterRegistry()))
+                .doesNotThrowAnyException();
+    }
+
+}
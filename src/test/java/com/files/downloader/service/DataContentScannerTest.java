@@ -0,0 +1,77 @@
+package com.files.downloader.service;
+
+import com.files.downloader.config.DownloadProperties;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Element;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DataContentScannerTest {
+
+    private static final String FILLER = "<p class=\"row\"><a href=\"/item\">Item</a></p>\n".repeat(20_000);
+
+    private final HtmlContentParsingService htmlContentParsingService =
+            new HtmlContentParsingService(ExtractionFixtures.extractionProfiles(), new DownloadProperties());
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "<html><body><div id=\"app\" data-content=\"{&quot;a&quot;:1}\"></div></body></html>",
+            "<div data-content='{\"a\":\"<b>\"}'></div>",
+            "<script>var s = '<div data-content=\"script\">';</script><div data-content=\"real\"></div>",
+            "<script>var s = '<div data-content=\"script\">';</script>",
+            "<!-- <div data-content=\"comment\"> --><DIV DATA-CONTENT=\"upper\"></DIV>",
+            "<!--> <div data-content=\"after an empty comment\"></div> -->",
+            "<title>Portal <div data-content=\"title\"></div>",
+            "<p>data-content is mentioned in the text only</p>",
+            "<div data-content=\"unterminated"
+    })
+    void extractsWhatJsoupExtracts(String page) throws Exception {
+        assertThat(extract(page)).isEqualTo(jsoup(page));
+    }
+
+    @Test
+    void fallsBackToJsoupAfterALongPage() throws Exception {
+        String page = "<html><body>" + FILLER
+                + "<!--> <div data-content=\"after an empty comment\"></div> -->" + FILLER + "</body></html>";
+
+        assertThat(extract(page)).isEqualTo("after an empty comment");
+    }
+
+    @Test
+    void retainsTheTextFromAboutWhereTheAttributeIsMentioned() throws Exception {
+        String page = "<html><body>" + FILLER + "<!--> <div data-content=\"x\"></div> -->" + FILLER + "</body></html>";
+        DataContentScanner scanner = new DataContentScanner(new StringReader(page));
+
+        assertThat(scanner.scan()).isNull();
+        assertThat(scanner.mayHaveMissedAttribute()).isTrue();
+        String replay = scanner.replay();
+        assertThat(page).endsWith(replay);
+        assertThat(replay).startsWith("<").hasSizeLessThan(page.length() - page.indexOf("<!-->") + 16 * 1024);
+    }
+
+    @Test
+    void doesNotMentionAnAttributeThatIsNotThere() throws Exception {
+        DataContentScanner scanner = new DataContentScanner(new StringReader("<html><body>" + FILLER));
+
+        assertThat(scanner.scan()).isNull();
+        assertThat(scanner.mayHaveMissedAttribute()).isFalse();
+    }
+
+    private String extract(String page) throws Exception {
+        return htmlContentParsingService.extractDataContent(
+                new ByteArrayInputStream(page.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8);
+    }
+
+    private static String jsoup(String page) {
+        Element div = Jsoup.parse(page).selectFirst("div[data-content]");
+        return div == null ? null : div.attr("data-content");
+    }
+
+}
@@ -0,0 +1,154 @@
+package com.files.downloader.service;
+
+import com.files.downloader.loadtest.FakePortal;
+import com.files.downloader.model.DownloadedFile;
+import com.files.downloader.model.FailedDownload;
+import com.files.downloader.repository.DownloadedFileRepository;
+import com.files.downloader.repository.FailedDownloadRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Crawls every listing page of the {@link FakePortal} through {@link DownloadJobService}, following the
+ * pagination links, and checks what ends up on disk and in the database.
+ */
+@SpringBootTest
+class DownloadJobIntegrationTest {
+
+    private static final int ITEMS = 25;
+
+    private static final FakePortal PORTAL = startPortal();
+
+    private static final Path DOWNLOAD_DIR = createDownloadDir();
+
+    @Autowired
+    private DownloadJobService downloadJobService;
+
+    @Autowired
+    private DownloadedFileRepository downloadedFileRepository;
+
+    @Autowired
+    private FailedDownloadRepository failedDownloadRepository;
+
+    @Autowired
+    private KnownDownloadIndex knownDownloadIndex;
+
+    @DynamicPropertySource
+    static void portalProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url",
+                () -> "jdbc:h2:mem:download-job-test;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        registry.add("spring.datasource.username", () -> "sa");
+        registry.add("spring.datasource.password", () -> "");
+        registry.add("app.portal.loginUrl", PORTAL::loginUrl);
+        registry.add("app.portal.resourceUrl", PORTAL::listingUrl);
+        registry.add("app.portal.username", () -> PORTAL.getSettings().username());
+        registry.add("app.portal.password", () -> PORTAL.getSettings().password());
+        registry.add("custom.download", PORTAL::downloadFormat);
+        registry.add("download.dir", DOWNLOAD_DIR::toString);
+        // Unchanged pages must reach the known download index instead of being skipped as a whole.
+        registry.add("download.conditional-get", () -> "false");
+        registry.add("download.adaptive-concurrency.default-retry-after", () -> "10ms");
+        registry.add("download.retry.poll-interval", () -> "1h");
+    }
+
+    @AfterEach
+    void reset() {
+        PORTAL.setDownloadErrorRate(0);
+        for (DownloadedFile downloadedFile : downloadedFileRepository.findAll()) {
+            knownDownloadIndex.forget(downloadedFile);
+        }
+        downloadedFileRepository.deleteAll();
+        failedDownloadRepository.deleteAll();
+    }
+
+    @AfterAll
+    static void stopPortal() {
+        PORTAL.close();
+        FileSystemUtils.deleteRecursively(DOWNLOAD_DIR.toFile());
+    }
+
+    @Test
+    void downloadsEveryPageAndSkipsKnownItemsOnTheNextRun() throws Exception {
+        DownloadJob job = run(new DownloadJob(List.of(), true));
+
+        assertThat(job.getStatus()).isEqualTo(DownloadJob.Status.COMPLETED);
+        assertThat(job.getPagesFetched().get()).isEqualTo(3);
+        assertThat(job.getItemsDownloaded().get()).isEqualTo(ITEMS);
+        List<DownloadedFile> downloadedFiles = downloadedFileRepository.findAll();
+        assertThat(downloadedFiles).hasSize(ITEMS);
+        for (DownloadedFile downloadedFile : downloadedFiles) {
+            assertThat(Files.readAllBytes(Path.of(downloadedFile.getLocalPath())))
+                    .isEqualTo(PORTAL.content(downloadedFile.getSourceId()));
+        }
+        long downloads = PORTAL.getDownloads();
+
+        DownloadJob again = run(new DownloadJob(List.of(), true));
+
+        assertThat(again.getStatus()).isEqualTo(DownloadJob.Status.COMPLETED);
+        assertThat(again.getItemsFound().get()).isEqualTo(ITEMS);
+        assertThat(again.getItemsSkipped().get()).isEqualTo(ITEMS);
+        assertThat(again.getItemsDownloaded().get()).isZero();
+        assertThat(PORTAL.getDownloads()).isEqualTo(downloads);
+        assertThat(downloadedFileRepository.count()).isEqualTo(ITEMS);
+    }
+
+    @Test
+    void queuesFailedDownloadsForRetry() throws Exception {
+        PORTAL.setDownloadErrorRate(1);
+
+        DownloadJob job = run(new DownloadJob(List.of(), true));
+
+        assertThat(job.getItemsFailed().get()).isEqualTo(ITEMS);
+        assertThat(downloadedFileRepository.count()).isZero();
+        List<FailedDownload> failedDownloads = failedDownloadRepository.findAll();
+        assertThat(failedDownloads).hasSize(ITEMS).allSatisfy(failedDownload -> {
+            assertThat(failedDownload.getStatus()).isEqualTo(FailedDownload.Status.PENDING);
+            assertThat(failedDownload.getAttempts()).isEqualTo(1);
+            assertThat(failedDownload.getFileUrl())
+                    .isEqualTo(PORTAL.downloadFormat().formatted(failedDownload.getSourceId()));
+        });
+    }
+
+    private DownloadJob run(DownloadJob job) throws InterruptedException {
+        downloadJobService.submit(job);
+        long deadline = System.nanoTime() + Duration.ofSeconds(60).toNanos();
+        while (!job.isFinished() && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(job.isFinished()).as("job finished").isTrue();
+        return job;
+    }
+
+    private static FakePortal startPortal() {
+        try {
+            return new FakePortal(new FakePortal.Settings(ITEMS, 10, 4 * 1024, Duration.ZERO, 0, 0,
+                    "test", "test")).start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Path createDownloadDir() {
+        try {
+            return Files.createTempDirectory("download-job-test-");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
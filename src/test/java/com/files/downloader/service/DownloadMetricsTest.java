@@ -0,0 +1,54 @@
+package com.files.downloader.service;
+
+import com.files.downloader.config.DownloadProperties;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DownloadMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final DownloadMetrics downloadMetrics = new DownloadMetrics(registry, downloadProperties());
+
+    @Test
+    void tagsKnownJobNames() {
+        downloadMetrics.failed(new DownloadJob(List.of(), false));
+        downloadMetrics.failed(new DownloadJob(DownloadRetryWorker.JOB_NAME, List.of(), false, false));
+        downloadMetrics.failed(new DownloadJob("sync:?page=1", List.of("?page=1"), false, true));
+        downloadMetrics.failed(new DownloadJob("nightly", List.of(), false, false));
+
+        assertThat(jobTags()).containsExactlyInAnyOrder("manual", "retry", "sync:?page=1", "nightly");
+    }
+
+    @Test
+    void tagsOtherJobNamesAsOther() {
+        for (int i = 0; i < 100; i++) {
+            downloadMetrics.failed(new DownloadJob("client-" + i, List.of(), false, false));
+        }
+
+        assertThat(jobTags()).containsExactly(DownloadMetrics.OTHER_JOB);
+        assertThat(registry.get("download.items").counter().count()).isEqualTo(100);
+    }
+
+    private List<String> jobTags() {
+        return registry.find("download.items").meters().stream()
+                .map(Meter::getId)
+                .map(id -> id.getTag("job"))
+                .toList();
+    }
+
+    private static DownloadProperties downloadProperties() {
+        DownloadProperties downloadProperties = new DownloadProperties();
+        DownloadProperties.SyncPage syncPage = new DownloadProperties.SyncPage();
+        syncPage.setPage("?page=1");
+        downloadProperties.getSync().getPages().add(syncPage);
+        downloadProperties.getJobs().getMetricNames().add("nightly");
+        return downloadProperties;
+    }
+
+}
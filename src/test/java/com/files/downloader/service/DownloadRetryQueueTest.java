@@ -0,0 +1,107 @@
+package com.files.downloader.service;
+
+import com.files.downloader.config.DownloadProperties;
+import com.files.downloader.model.FailedDownload;
+import com.files.downloader.repository.FailedDownloadRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DownloadRetryQueueTest {
+
+    private static final String FILE_URL = "https://portal.example.com/download?id=1";
+
+    private final FailedDownloadRepository failedDownloadRepository = mock(FailedDownloadRepository.class);
+
+    private final DownloadProperties downloadProperties = new DownloadProperties();
+
+    private final DownloadRetryQueue downloadRetryQueue = new DownloadRetryQueue(failedDownloadRepository,
+            downloadProperties, new DownloadMetrics(new SimpleMeterRegistry(), downloadProperties));
+
+    @Test
+    void backsOffExponentiallyWithinTheJitter() {
+        DownloadProperties.Retry retry = downloadProperties.getRetry();
+        retry.setInitialBackoff(Duration.ofMinutes(1));
+        retry.setMultiplier(2);
+        retry.setMaxBackoff(Duration.ofHours(1));
+        retry.setJitter(0.5);
+        long[] expectedMinutes = {1, 2, 4, 8, 16, 32, 60, 60};
+
+        for (int attempts = 1; attempts <= expectedMinutes.length; attempts++) {
+            Duration delay = Duration.ofMinutes(expectedMinutes[attempts - 1]);
+            for (int sample = 0; sample < 200; sample++) {
+                assertThat(downloadRetryQueue.backoff(attempts))
+                        .as("attempt %d", attempts)
+                        .isBetween(delay.dividedBy(2), delay);
+            }
+        }
+    }
+
+    @Test
+    void backsOffExactlyWithoutJitter() {
+        DownloadProperties.Retry retry = downloadProperties.getRetry();
+        retry.setInitialBackoff(Duration.ofSeconds(10));
+        retry.setMultiplier(3);
+        retry.setJitter(0);
+
+        assertThat(downloadRetryQueue.backoff(1)).isEqualTo(Duration.ofSeconds(10));
+        assertThat(downloadRetryQueue.backoff(3)).isEqualTo(Duration.ofSeconds(90));
+    }
+
+    @Test
+    void schedulesTheNextAttemptBeforeTheLast() {
+        downloadProperties.getRetry().setMaxAttempts(3);
+        FailedDownload failedDownload = failedDownload(1);
+        when(failedDownloadRepository.findByFileUrl(FILE_URL)).thenReturn(Optional.of(failedDownload));
+        LocalDateTime before = LocalDateTime.now();
+
+        downloadRetryQueue.failed("1", FILE_URL, "1.bin", "1", "HTTP 503");
+
+        verify(failedDownloadRepository).save(failedDownload);
+        assertThat(failedDownload.getAttempts()).isEqualTo(2);
+        assertThat(failedDownload.getStatus()).isEqualTo(FailedDownload.Status.PENDING);
+        assertThat(failedDownload.getNextAttemptAt()).isAfter(before);
+        assertThat(failedDownload.getLastError()).isEqualTo("HTTP 503");
+    }
+
+    @Test
+    void deadLettersAfterTheMaximumAttempts() {
+        downloadProperties.getRetry().setMaxAttempts(3);
+        FailedDownload failedDownload = failedDownload(2);
+        when(failedDownloadRepository.findByFileUrl(FILE_URL)).thenReturn(Optional.of(failedDownload));
+
+        downloadRetryQueue.failed("1", FILE_URL, "1.bin", "1", "HTTP 503");
+
+        verify(failedDownloadRepository).save(failedDownload);
+        assertThat(failedDownload.getAttempts()).isEqualTo(3);
+        assertThat(failedDownload.getStatus()).isEqualTo(FailedDownload.Status.DEAD);
+    }
+
+    @Test
+    void queuesNothingWhenRetryIsDisabled() {
+        downloadProperties.getRetry().setEnabled(false);
+
+        downloadRetryQueue.failed("1", FILE_URL, "1.bin", "1", "HTTP 503");
+
+        verify(failedDownloadRepository, never()).save(any());
+    }
+
+    private static FailedDownload failedDownload(int attempts) {
+        FailedDownload failedDownload = new FailedDownload("1", FILE_URL, "1.bin", "1");
+        failedDownload.setId(7L);
+        failedDownload.setAttempts(attempts);
+        failedDownload.setCreatedAt(LocalDateTime.now());
+        return failedDownload;
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.files.downloader.service;
+
+import com.files.downloader.config.DownloadProperties;
+import com.files.downloader.model.FailedDownload;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DownloadRetryWorkerTest {
+
+    private final DownloadRetryQueue downloadRetryQueue = mock(DownloadRetryQueue.class);
+
+    private final FileDownloadService fileDownloadService = mock(FileDownloadService.class);
+
+    private final KnownDownloadIndex knownDownloadIndex = mock(KnownDownloadIndex.class);
+
+    private final ExecutorService downloadExecutor = Executors.newSingleThreadExecutor();
+
+    private final DownloadRetryWorker downloadRetryWorker = new DownloadRetryWorker(downloadRetryQueue,
+            fileDownloadService, knownDownloadIndex, downloadExecutor, new DownloadProperties());
+
+    private final FailedDownload failedDownload =
+            new FailedDownload("1", "https://portal.example.com/download?id=1", "1.bin", "1");
+
+    @AfterEach
+    void shutdown() {
+        downloadExecutor.shutdownNow();
+    }
+
+    @Test
+    void doesNotStartADownloadThatIsStillInFlight() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(downloadRetryQueue.due(anyInt())).thenReturn(List.of(failedDownload));
+        when(fileDownloadService.retryDownload(any(), any())).thenAnswer(invocation -> {
+            started.countDown();
+            return release.await(5, TimeUnit.SECONDS);
+        });
+
+        downloadRetryWorker.retryDue();
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        downloadRetryWorker.retryDue();
+        release.countDown();
+
+        // Runs after the first attempt has completed on the single download thread.
+        downloadExecutor.submit(() -> { }).get(5, TimeUnit.SECONDS);
+
+        verify(downloadRetryQueue).remove(failedDownload);
+        verify(fileDownloadService, times(1)).retryDownload(any(), any());
+
+        // Once the first attempt is over the download may be retried again.
+        downloadRetryWorker.retryDue();
+        downloadExecutor.submit(() -> { }).get(5, TimeUnit.SECONDS);
+        verify(fileDownloadService, times(2)).retryDownload(any(), any());
+    }
+
+    @Test
+    void dropsADownloadThatSucceededInTheMeantime() {
+        when(downloadRetryQueue.due(anyInt())).thenReturn(List.of(failedDownload));
+        when(knownDownloadIndex.isKnownFile(failedDownload.getFileUrl())).thenReturn(true);
+
+        downloadRetryWorker.retryDue();
+
+        verify(downloadRetryQueue).remove(failedDownload);
+        verify(fileDownloadService, never()).retryDownload(any(), any());
+    }
+
+}
@@ -0,0 +1,168 @@
+package com.files.downloader.service;
+
+import com.files.downloader.config.DownloadProperties;
+import com.files.downloader.dto.DownloadResponseDTO;
+import com.files.downloader.repository.DownloadedFileRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.LongStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DownloadedFileExportServiceTest {
+
+    private static final LocalDateTime DOWNLOADED_AT = LocalDateTime.of(2026, 10, 16, 12, 0);
+
+    private final DownloadedFileRepository downloadedFileRepository = mock(DownloadedFileRepository.class);
+
+    private final DownloadedFileQueryService downloadedFileQueryService =
+            new DownloadedFileQueryService(downloadedFileRepository);
+
+    private DownloadedFileExportService downloadedFileExportService;
+
+    @TempDir
+    private Path dir;
+
+    private Path downloads;
+
+    @BeforeEach
+    void createService() throws IOException {
+        downloads = Files.createDirectories(dir.resolve("downloads"));
+        DownloadProperties downloadProperties = new DownloadProperties();
+        downloadProperties.setDir(downloads.toString());
+        downloadProperties.setBufferSize(1024);
+        downloadedFileExportService = new DownloadedFileExportService(downloadedFileQueryService, downloadProperties);
+    }
+
+    @Test
+    void storesCompressedFormatsAndDeflatesTheRest() throws Exception {
+        byte[] text = "line\n".repeat(2000).getBytes(StandardCharsets.UTF_8);
+        byte[] photo = random(5000);
+        byte[] archive = random(3000);
+        List<DownloadResponseDTO> files = List.of(
+                file(1, write(downloads.resolve("reports/report.txt"), text)),
+                file(2, write(downloads.resolve("photo.JPG"), photo)),
+                file(3, write(downloads.resolve("archive.zip"), archive)));
+
+        Map<String, Entry> entries = unzip(export(files, 3));
+
+        assertThat(entries.keySet()).containsExactly("reports/report.txt", "photo.JPG", "archive.zip");
+        assertThat(entries.get("reports/report.txt").method()).isEqualTo(ZipEntry.DEFLATED);
+        assertThat(entries.get("reports/report.txt").content()).isEqualTo(text);
+        // Reading a STORED entry back checks its size and the CRC of the pre-pass.
+        assertThat(entries.get("photo.JPG").method()).isEqualTo(ZipEntry.STORED);
+        assertThat(entries.get("photo.JPG").content()).isEqualTo(photo);
+        assertThat(entries.get("archive.zip").method()).isEqualTo(ZipEntry.STORED);
+        assertThat(entries.get("archive.zip").content()).isEqualTo(archive);
+    }
+
+    @Test
+    void prefixesARepeatedNameWithTheRecordId() throws Exception {
+        byte[] first = "first".getBytes(StandardCharsets.UTF_8);
+        byte[] second = "second".getBytes(StandardCharsets.UTF_8);
+        List<DownloadResponseDTO> files = List.of(
+                file(7, write(dir.resolve("a/notes.txt"), first)),
+                file(8, write(dir.resolve("b/notes.txt"), second)));
+
+        Map<String, Entry> entries = unzip(export(files, 2));
+
+        assertThat(entries.keySet()).containsExactly("notes.txt", "8-notes.txt");
+        assertThat(entries.get("notes.txt").content()).isEqualTo(first);
+        assertThat(entries.get("8-notes.txt").content()).isEqualTo(second);
+    }
+
+    @Test
+    void leavesOutFilesMissingFromDisk() throws Exception {
+        byte[] content = "kept".getBytes(StandardCharsets.UTF_8);
+        List<DownloadResponseDTO> files = List.of(
+                file(1, downloads.resolve("deleted.txt")),
+                file(2, write(downloads.resolve("kept.txt"), content)));
+
+        Map<String, Entry> entries = unzip(export(files, 1));
+
+        assertThat(entries.keySet()).containsExactly("kept.txt");
+    }
+
+    @Test
+    void readsTheDateRangePageByPage() throws Exception {
+        LocalDateTime from = DOWNLOADED_AT.minusDays(1);
+        LocalDateTime to = DOWNLOADED_AT.plusDays(1);
+        Path shared = write(downloads.resolve("shared.txt"), "shared".getBytes(StandardCharsets.UTF_8));
+        List<DownloadResponseDTO> firstPage = LongStream.rangeClosed(1, 500)
+                .mapToObj(id -> file(id, shared))
+                .toList();
+        when(downloadedFileRepository.findPageAfter(from, to, from, 0, PageRequest.ofSize(500)))
+                .thenReturn(firstPage);
+        when(downloadedFileRepository.findPageAfter(eq(from), eq(to), eq(DOWNLOADED_AT), eq(500L), any()))
+                .thenReturn(List.of(file(501, shared)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        int written = downloadedFileExportService.export(from, to, out);
+
+        assertThat(written).isEqualTo(501);
+        assertThat(unzip(out.toByteArray())).hasSize(501)
+                .containsKeys("shared.txt", "2-shared.txt", "501-shared.txt");
+        verify(downloadedFileRepository).findPageAfter(eq(from), eq(to), eq(DOWNLOADED_AT), eq(500L), any());
+    }
+
+    private byte[] export(List<DownloadResponseDTO> files, int expected) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThat(downloadedFileExportService.export(files, out)).isEqualTo(expected);
+        return out.toByteArray();
+    }
+
+    private static DownloadResponseDTO file(long id, Path path) {
+        return new DownloadResponseDTO(id, "https://portal.example.com/download?id=" + id, path.toString(),
+                DOWNLOADED_AT);
+    }
+
+    private static Path write(Path path, byte[] content) throws IOException {
+        Files.createDirectories(path.getParent());
+        return Files.write(path, content);
+    }
+
+    private static byte[] random(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * The entries of the archive by name, in archive order.
+     */
+    private static Map<String, Entry> unzip(byte[] archive) throws IOException {
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                entries.put(entry.getName(), new Entry(entry.getMethod(), zip.readAllBytes()));
+            }
+        }
+        return entries;
+    }
+
+    private record Entry(int method, byte[] content) {
+    }
+
+}
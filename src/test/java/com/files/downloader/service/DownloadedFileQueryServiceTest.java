@@ -0,0 +1,65 @@
+package com.files.downloader.service;
+
+import com.files.downloader.dto.DownloadResponseDTO;
+import com.files.downloader.repository.DownloadedFileRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class DownloadedFileQueryServiceTest {
+
+    private static final LocalDateTime DOWNLOADED_AT = LocalDateTime.of(2026, 10, 16, 12, 30, 15, 123_456_000);
+
+    private final DownloadedFileRepository downloadedFileRepository = mock(DownloadedFileRepository.class);
+
+    private final DownloadedFileQueryService downloadedFileQueryService =
+            new DownloadedFileQueryService(downloadedFileRepository);
+
+    @Test
+    void continuesAfterThePositionOfTheCursor() {
+        LocalDateTime from = LocalDateTime.of(2026, 1, 1, 0, 0);
+        String cursor = downloadedFileQueryService.cursorAfter(
+                new DownloadResponseDTO(42L, "https://portal.example.com/download?id=1", "/tmp/1", DOWNLOADED_AT));
+
+        downloadedFileQueryService.page(from, null, cursor, 10);
+
+        verify(downloadedFileRepository).findPageAfter(eq(from), any(), eq(DOWNLOADED_AT), eq(42L),
+                eq(PageRequest.ofSize(10)));
+    }
+
+    @Test
+    void startsAtTheLowerBoundWithoutACursor() {
+        LocalDateTime from = LocalDateTime.of(2026, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2026, 2, 1, 0, 0);
+
+        downloadedFileQueryService.page(from, to, null, 10);
+
+        verify(downloadedFileRepository).findPageAfter(from, to, from, 0, PageRequest.ofSize(10));
+    }
+
+    @Test
+    void cursorIsUrlSafe() {
+        String cursor = downloadedFileQueryService.cursorAfter(
+                new DownloadResponseDTO(Long.MAX_VALUE, "file", "/tmp/file", DOWNLOADED_AT));
+
+        assertThat(cursor).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void rejectsACursorItDidNotProduce() {
+        for (String cursor : List.of("not a cursor", "bm90LWEtZGF0ZV80Mg", "MjAyNi0xMC0xNlQxMjozMA")) {
+            assertThatIllegalArgumentException()
+                    .isThrownBy(() -> downloadedFileQueryService.page(null, null, cursor, 10));
+        }
+    }
+
+}
@@ -0,0 +1,59 @@
+package com.files.downloader.service;
+
+import com.files.downloader.config.DownloadProperties;
+import com.files.downloader.model.DownloadedFile;
+import com.files.downloader.repository.DownloadedFileRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DownloadedFileWriterTest {
+
+    private final DownloadedFileRepository downloadedFileRepository = mock(DownloadedFileRepository.class);
+
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+
+    private final List<LocalDateTime> saved = new ArrayList<>();
+
+    private final DownloadedFileWriter downloadedFileWriter = new DownloadedFileWriter(downloadedFileRepository,
+            mock(KnownDownloadIndex.class), transactionTemplate, new DownloadProperties(),
+            new DownloadMetrics(new SimpleMeterRegistry(), new DownloadProperties()));
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void stampsRecordsWhenTheBatchIsWritten() {
+        doAnswer(invocation -> {
+            invocation.getArgument(0, Consumer.class).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(downloadedFileRepository.saveAll(anyIterable())).thenAnswer(invocation -> {
+            Iterable<DownloadedFile> batch = invocation.getArgument(0);
+            batch.forEach(downloadedFile -> saved.add(downloadedFile.getDownloadedAt()));
+            return List.of();
+        });
+        LocalDateTime downloadedAt = LocalDateTime.of(2026, 1, 1, 0, 0);
+        downloadedFileWriter.submit(new DownloadedFile("https://portal.example.com/download?id=1", "/tmp/1",
+                downloadedAt));
+        downloadedFileWriter.submit(new DownloadedFile("https://portal.example.com/download?id=2", "/tmp/2",
+                downloadedAt));
+        LocalDateTime flushed = LocalDateTime.now();
+
+        downloadedFileWriter.flush();
+
+        assertThat(saved).hasSize(2).allSatisfy(writtenAt -> assertThat(writtenAt).isAfterOrEqualTo(flushed));
+        assertThat(saved.get(0)).isEqualTo(saved.get(1));
+    }
+
+}
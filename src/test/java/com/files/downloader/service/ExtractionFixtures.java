@@ -0,0 +1,30 @@
+package com.files.downloader.service;
+
+import com.files.downloader.config.CustomProperties;
+
+/**
+ * The portal field names used by the parsing tests and benchmarks: items carry {@code custom_url} links
+ * ending in {@code -my-pro<n>}, {@code rates}, {@code id} and {@code date}; detail pages carry {@code url_id};
+ * listings link further pages with {@code next_page_url}.
+ */
+public final class ExtractionFixtures {
+
+    private ExtractionFixtures() {
+    }
+
+    public static CustomProperties customProperties() {
+        CustomProperties customProperties = new CustomProperties();
+        customProperties.setExt("-my-pro");
+        customProperties.setRate("rates");
+        customProperties.setUrl("custom_url");
+        customProperties.setId("url_id");
+        customProperties.setDownload("https://www.example.com/download?id=%s&session_id=");
+        customProperties.setNextPage("next_page_url");
+        return customProperties;
+    }
+
+    public static ExtractionProfiles extractionProfiles() {
+        return new ExtractionProfiles(customProperties());
+    }
+
+}
@@ -0,0 +1,212 @@
+package com.files.downloader.service;
+
+import com.files.downloader.config.DownloadProperties;
+import com.files.downloader.dto.TransferResult;
+import com.files.downloader.loadtest.FakePortal;
+import com.files.downloader.model.PartialDownload;
+import com.files.downloader.repository.PartialDownloadRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Downloads from the {@link FakePortal} through the application's portal client, with segmented
+ * downloads enabled for files of at least 16KB.
+ */
+@SpringBootTest
+class FileTransferServiceIntegrationTest {
+
+    private static final FakePortal PORTAL = startPortal();
+
+    private static final Path DOWNLOAD_DIR = createDownloadDir();
+
+    @Autowired
+    private FileTransferService fileTransferService;
+
+    @Autowired
+    private PortalAuthService portalAuthService;
+
+    @Autowired
+    private PartialDownloadRepository partialDownloadRepository;
+
+    @Autowired
+    private DownloadProperties downloadProperties;
+
+    @DynamicPropertySource
+    static void portalProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url",
+                () -> "jdbc:h2:mem:transfer-test;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        registry.add("spring.datasource.username", () -> "sa");
+        registry.add("spring.datasource.password", () -> "");
+        registry.add("app.portal.loginUrl", PORTAL::loginUrl);
+        registry.add("app.portal.resourceUrl", PORTAL::listingUrl);
+        registry.add("app.portal.username", () -> PORTAL.getSettings().username());
+        registry.add("app.portal.password", () -> PORTAL.getSettings().password());
+        registry.add("custom.download", PORTAL::downloadFormat);
+        registry.add("download.dir", DOWNLOAD_DIR::toString);
+        registry.add("download.segmented.enabled", () -> "true");
+        registry.add("download.segmented.threshold", () -> "16KB");
+        registry.add("download.segmented.min-segment-size", () -> "8KB");
+        registry.add("download.retry.enabled", () -> "false");
+    }
+
+    @AfterEach
+    void resetPortal() {
+        PORTAL.setRejectHead(false);
+        PORTAL.setRevision(0);
+    }
+
+    @AfterAll
+    static void stopPortal() {
+        PORTAL.close();
+        FileSystemUtils.deleteRecursively(DOWNLOAD_DIR.toFile());
+    }
+
+    @Test
+    void logsInAgainWhenTheSessionIsRedirectedToTheLoginPage() throws Exception {
+        portalAuthService.getSessionCookie();
+        long logins = PORTAL.getLogins();
+        PORTAL.expireSession();
+        Path target = DOWNLOAD_DIR.resolve("files/expired-session.bin");
+
+        TransferResult result = portalAuthService.withSession(
+                cookie -> fileTransferService.download(downloadUrl("1"), target, cookie));
+
+        assertThat(PORTAL.getLogins()).isEqualTo(logins + 1);
+        assertThat(result).isNotNull();
+        assertThat(Files.readAllBytes(target)).isEqualTo(PORTAL.content("1"));
+    }
+
+    @Test
+    void completesAFullyReceivedPartFileWithoutARequest() throws Exception {
+        String fileUrl = downloadUrl("2");
+        byte[] content = PORTAL.content("2");
+        leavePartFile(fileUrl, content, content.length, PORTAL.etag("2"));
+        long downloads = PORTAL.getDownloads();
+        Path target = DOWNLOAD_DIR.resolve("files/complete-part.bin");
+
+        TransferResult result = fileTransferService.download(fileUrl, target, portalAuthService.getSessionCookie());
+
+        assertThat(PORTAL.getDownloads()).isEqualTo(downloads);
+        assertThat(result.getContentLength()).isEqualTo(content.length);
+        assertThat(result.getContentSha256()).isEqualTo(sha256(content));
+        assertThat(Files.readAllBytes(target)).isEqualTo(content);
+        assertThat(partialDownloadRepository.findByFileUrl(fileUrl)).isEmpty();
+    }
+
+    @Test
+    void downloadsAsASingleStreamWhenHeadIsRejected() throws Exception {
+        PORTAL.setRejectHead(true);
+        long downloads = PORTAL.getDownloads();
+        Path target = DOWNLOAD_DIR.resolve("files/head-rejected.bin");
+
+        TransferResult result = fileTransferService.download(downloadUrl("3"), target,
+                portalAuthService.getSessionCookie());
+
+        assertThat(result).isNotNull();
+        assertThat(PORTAL.getDownloads()).isEqualTo(downloads + 1);
+        assertThat(Files.readAllBytes(target)).isEqualTo(PORTAL.content("3"));
+    }
+
+    @Test
+    void resumesAPartFileWithARangeGuardedByIfRange() throws Exception {
+        String fileUrl = downloadUrl("4");
+        byte[] content = PORTAL.content("4");
+        leavePartFile(fileUrl, content, 1000, PORTAL.etag("4"));
+        long served = PORTAL.getBytesServed();
+        Path target = DOWNLOAD_DIR.resolve("files/resumed.bin");
+
+        TransferResult result = fileTransferService.download(fileUrl, target, portalAuthService.getSessionCookie());
+
+        assertThat(PORTAL.getLastRange()).isEqualTo("bytes=1000-");
+        assertThat(PORTAL.getLastIfRange()).isEqualTo(PORTAL.etag("4"));
+        assertThat(PORTAL.getBytesServed() - served).isEqualTo(content.length - 1000);
+        assertThat(result.getBytes()).isEqualTo(content.length - 1000);
+        assertThat(result.getContentSha256()).isEqualTo(sha256(content));
+        assertThat(Files.readAllBytes(target)).isEqualTo(content);
+        assertThat(partialDownloadRepository.findByFileUrl(fileUrl)).isEmpty();
+    }
+
+    @Test
+    void restartsFromByteZeroWhenTheFileChanged() throws Exception {
+        String fileUrl = downloadUrl("5");
+        String staleEtag = PORTAL.etag("5");
+        leavePartFile(fileUrl, PORTAL.content("5"), 1000, staleEtag);
+        PORTAL.setRevision(1);
+        byte[] content = PORTAL.content("5");
+        Path target = DOWNLOAD_DIR.resolve("files/changed.bin");
+
+        TransferResult result = fileTransferService.download(fileUrl, target, portalAuthService.getSessionCookie());
+
+        assertThat(PORTAL.getLastIfRange()).isEqualTo(staleEtag);
+        assertThat(result.getBytes()).isEqualTo(content.length);
+        assertThat(result.getEtag()).isEqualTo(PORTAL.etag("5"));
+        assertThat(Files.readAllBytes(target)).isEqualTo(content);
+    }
+
+    /**
+     * Leaves the first bytes of a download in its .part file, as an interrupted attempt does.
+     */
+    private void leavePartFile(String fileUrl, byte[] content, int received, String etag) throws Exception {
+        Path partFile = partFileFor(fileUrl);
+        Files.createDirectories(partFile.getParent());
+        Files.write(partFile, Arrays.copyOf(content, received));
+        PartialDownload state = new PartialDownload(fileUrl, partFile.toString());
+        state.setEtag(etag);
+        state.setExpectedLength((long) content.length);
+        state.setDownloadedBytes(received);
+        state.setUpdatedAt(LocalDateTime.now());
+        partialDownloadRepository.save(state);
+    }
+
+    private Path partFileFor(String fileUrl) throws NoSuchAlgorithmException {
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(fileUrl.getBytes(StandardCharsets.UTF_8));
+        return Path.of(downloadProperties.getDir(), ".parts", HexFormat.of().formatHex(digest) + ".part")
+                .toAbsolutePath();
+    }
+
+    private static String downloadUrl(String item) {
+        return PORTAL.downloadFormat().formatted(item);
+    }
+
+    private static String sha256(byte[] content) throws NoSuchAlgorithmException {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+    }
+
+    private static FakePortal startPortal() {
+        try {
+            return new FakePortal(new FakePortal.Settings(10, 10, 64 * 1024, Duration.ZERO, 0, 0,
+                    "test", "test")).start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Path createDownloadDir() {
+        try {
+            return Files.createTempDirectory("transfer-test-");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
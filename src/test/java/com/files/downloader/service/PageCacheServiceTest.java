@@ -0,0 +1,57 @@
+package com.files.downloader.service;
+
+import com.files.downloader.config.DownloadProperties;
+import com.files.downloader.model.PageSnapshot;
+import com.files.downloader.repository.PageSnapshotRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PageCacheServiceTest {
+
+    private static final String PAGE = "https://portal.example.com/listing?page=1";
+
+    private static final String PAGE_2 = "https://portal.example.com/listing?page=2";
+
+    private final PageSnapshotRepository pageSnapshotRepository = mock(PageSnapshotRepository.class);
+
+    private final PageCacheService pageCacheService =
+            new PageCacheService(pageSnapshotRepository, new DownloadProperties());
+
+    @Test
+    void updatesTheSnapshotAnotherJobInsertedFirst() {
+        PageSnapshot inserted = new PageSnapshot(PAGE);
+        inserted.setContentDigest("other");
+        when(pageSnapshotRepository.findByPageUrl(PAGE)).thenReturn(Optional.empty())
+                .thenReturn(Optional.of(inserted));
+        when(pageSnapshotRepository.save(any()))
+                .thenThrow(new DataIntegrityViolationException("page_url"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        pageCacheService.record(PAGE, "\"v2\"", null, "digest", List.of(PAGE_2));
+
+        verify(pageSnapshotRepository).save(inserted);
+        assertThat(inserted.getEtag()).isEqualTo("\"v2\"");
+        assertThat(inserted.getContentDigest()).isEqualTo("digest");
+        assertThat(inserted.getCheckedAt()).isNotNull();
+        assertThat(pageCacheService.pageLinks(inserted)).containsExactly(PAGE_2);
+    }
+
+    @Test
+    void hasNoPageLinksForASnapshotWithoutAny() {
+        PageSnapshot snapshot = new PageSnapshot(PAGE);
+        snapshot.setPageLinks("");
+
+        assertThat(pageCacheService.pageLinks(snapshot)).isEmpty();
+        assertThat(pageCacheService.pageLinks(null)).isEmpty();
+    }
+
+}
@@ -0,0 +1,133 @@
+package com.files.downloader.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.files.downloader.config.DownloadProperties;
+import com.files.downloader.dto.UrlDownloadNode;
+import com.files.downloader.dto.UrlNode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+/**
+ * Checks that the single-pass {@link UrlNodeJsonExtractor} returns the records of the JsonNode tree
+ * traversal in {@link HtmlContentParsingService}, which it replaced.
+ */
+class UrlNodeJsonExtractorTest {
+
+    private static final String ITEM = "https://portal.example.com/detail/item-number-%d-my-pro%d";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ExtractionProfiles extractionProfiles = ExtractionFixtures.extractionProfiles();
+
+    private final HtmlContentParsingService htmlContentParsingService =
+            new HtmlContentParsingService(extractionProfiles, new DownloadProperties());
+
+    private final UrlNodeJsonExtractor urlNodeJsonExtractor = new UrlNodeJsonExtractor(extractionProfiles);
+
+    static Stream<Arguments> listings() {
+        return Stream.of(
+                arguments("flat listing", """
+                        {"items":[%s,%s,%s],"next_page_url":"?page=2"}"""
+                        .formatted(item(1), item(2), item(3))),
+                arguments("nested arrays", """
+                        {"sections":[[%s,[%s,{"group":[[%s]]}]],[],[[[%s]]]]}"""
+                        .formatted(item(1), item(2), item(3), item(4))),
+                arguments("root array", """
+                        [%s,{"children":[%s,%s]},[%s]]"""
+                        .formatted(item(1), item(2), item(3), item(4))),
+                arguments("item inside an item", """
+                        {"custom_url":"%s","id":"1","rates":7,"related":{"items":[%s]},"date":"1700000000"}"""
+                        .formatted(ITEM.formatted(1, 1), item(2))),
+                arguments("missing fields", """
+                        {"items":[
+                          {"custom_url":"%s","rates":3,"date":"1700000000"},
+                          {"id":"2","rates":3,"date":"1700000000"},
+                          {"custom_url":"%s","id":"3"},
+                          {"custom_url":"https://portal.example.com/detail/other-4","id":"4","rates":1},
+                          {"custom_url":"%s","id":"","rates":1},
+                          {"custom_url":"%s","id":"6","rates":"many","date":"1700000000"},
+                          {"custom_url":"%s","id":7,"rates":2.9},
+                          {"custom_url":{"href":"%s"},"id":"8"},
+                          {"custom_url":"%s","id":["9"]},
+                          {"custom_url":null,"id":"10"}
+                        ]}"""
+                        .formatted(ITEM.formatted(1, 1), ITEM.formatted(3, 3), ITEM.formatted(5, 5),
+                                ITEM.formatted(6, 6), ITEM.formatted(7, 7), ITEM.formatted(8, 8),
+                                ITEM.formatted(9, 9))),
+                arguments("duplicate ids", """
+                        {"items":[%s,%s,%s],"featured":[%s,%s],
+                         "moved":{"custom_url":"%s","id":"1","rates":1,"date":"1700000060"}}"""
+                        .formatted(item(1), item(2), item(1), item(2), item(3), ITEM.formatted(1, 10))),
+                arguments("fields in any order and repeated", """
+                        {"items":[
+                          {"date":"1700000000","id":"1","meta":{"x":[1,2]},"rates":4,"custom_url":"%s"},
+                          {"custom_url":"%s","id":"2","rates":4,"rates":{"up":1}},
+                          {"custom_url":"%s","id":{"value":"3"},"id":"3b"}
+                        ]}"""
+                        .formatted(ITEM.formatted(1, 1), ITEM.formatted(2, 2), ITEM.formatted(3, 3))),
+                arguments("no items", """
+                        {"items":[],"next_page_url":"?page=2","custom_url":"%s"}"""
+                        .formatted(ITEM.formatted(1, 1))));
+    }
+
+    static Stream<Arguments> detailPages() {
+        return Stream.of(
+                arguments("own id", """
+                        {"url_id":"own","file":{"url_id":"child"}}"""),
+                arguments("nested id", """
+                        {"title":"x","file":{"meta":{"url_id":"deep"}},"other":{"url_id":"later"}}"""),
+                arguments("root array", """
+                        [{"title":"x"},{"file":{"url_id":"second"}},{"url_id":"third"}]"""),
+                arguments("nested arrays", """
+                        {"files":[[{"size":1}],[[{"url_id":"inner"}]]]}"""),
+                arguments("non-textual own id", """
+                        {"url_id":42,"file":{"url_id":"child"}}"""),
+                arguments("missing id", """
+                        {"title":"x","file":{"size":1}}"""));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("listings")
+    void extractsTheUrlNodesOfTheTreeTraversal(String name, String json) throws Exception {
+        List<UrlNode> expected = htmlContentParsingService.filterAndDisplayUrl(objectMapper.readTree(json))
+                .stream().distinct().toList();
+
+        assertThat(urlNodeJsonExtractor.extractUrlNodes(json)).containsExactlyElementsOf(expected);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("detailPages")
+    void extractsTheDownloadNodeOfTheTreeTraversal(String name, String json) throws Exception {
+        UrlDownloadNode expected = htmlContentParsingService.filterUrlDownloadNode(objectMapper.readTree(json));
+
+        assertThat(urlNodeJsonExtractor.extractUrlDownloadNode(json)).isEqualTo(expected);
+    }
+
+    @Test
+    void collectsPageLinksInDocumentOrder() throws Exception {
+        List<String> pageLinks = new ArrayList<>();
+
+        urlNodeJsonExtractor.extractUrlNodes("""
+                {"next_page_url":"?page=2","items":[%s],"footer":{"next_page_url":"?page=3","x":{"next_page_url":""}}}"""
+                .formatted(item(1)), pageLinks);
+
+        assertThat(pageLinks).containsExactly("?page=2", "?page=3");
+    }
+
+    private static String item(int number) {
+        return """
+                {"id":"%d","custom_url":"%s","rates":%d,"date":"%d","title":"Item %d"}"""
+                .formatted(number, ITEM.formatted(number, number), number % 5, 1_700_000_000L - number * 60L,
+                        number);
+    }
+
+}